@@ -22,29 +22,38 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
 import android.util.SparseArray;
 
 import com.ubhave.sensormanager.config.GlobalConfig;
 import com.ubhave.sensormanager.config.SensorConfig;
+import com.ubhave.sensormanager.config.SubscriptionConfig;
 import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.data.SensorDataBundle;
 import com.ubhave.sensormanager.dutycyling.AdaptiveSensing;
+import com.ubhave.sensormanager.scheduler.SensingScheduler;
+import com.ubhave.sensormanager.scheduler.WakeStatistics;
 import com.ubhave.sensormanager.sensors.SensorInterface;
 import com.ubhave.sensormanager.sensors.SensorUtils;
-import com.ubhave.sensormanager.sensors.pull.AbstractPullSensor;
 import com.ubhave.sensormanager.tasks.AbstractSensorTask;
+import com.ubhave.sensormanager.tasks.CircuitBreakerListener;
+import com.ubhave.sensormanager.tasks.DeliveryStatistics;
+import com.ubhave.sensormanager.tasks.NotificationDispatcher;
+import com.ubhave.sensormanager.tasks.NotificationStatistics;
 import com.ubhave.sensormanager.tasks.PullSensorTask;
 import com.ubhave.sensormanager.tasks.PushSensorTask;
+import com.ubhave.sensormanager.tasks.SenseFailureStatistics;
 import com.ubhave.sensormanager.tasks.Subscription;
 import com.ubhave.sensormanager.tasks.SubscriptionList;
 
-public class ESSensorManager implements ESSensorManagerInterface, SensorDataListener
+public class ESSensorManager implements ESSensorManagerInterface, SensorDataListener, CircuitBreakerListener
 {
 	private static final String TAG = "ESSensorManager";
 
@@ -57,10 +66,19 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 	private boolean isSubscribedToBattery;
 	private int batterySubscriptionId;
 
+	// while any pull sensor's circuit breaker is open, connection changes
+	// are watched so those sensors can be retried early
+	private final AtomicInteger openCircuitCount;
+	private boolean isSubscribedToConnectionState;
+	private int connectionStateSubscriptionId;
+
 	private final SparseArray<AbstractSensorTask> sensorTaskMap;
 	private final SubscriptionList subscriptionList;
 	private final GlobalConfig config;
 
+	// how long creating the manager took, see getStartupMillis()
+	private long startupMillis;
+
 	public static ESSensorManager getSensorManager(Context context) throws ESException
 	{
 		if (context == null)
@@ -73,7 +91,11 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 			{
 				if (sensorManager == null)
 				{
-					sensorManager = new ESSensorManager(context);
+					long startTime = SystemClock.elapsedRealtime();
+					ESSensorManager created = new ESSensorManager(context);
+					created.startupMillis = SystemClock.elapsedRealtime() - startTime;
+					Log.d(TAG, "getSensorManager() started in " + created.startupMillis + " ms");
+					sensorManager = created;
 				}
 			}
 		}
@@ -87,47 +109,50 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 		subscriptionList = new SubscriptionList();
 		config = GlobalConfig.getGlobalConfig();
 		isSubscribedToBattery = false;
+		openCircuitCount = new AtomicInteger();
+		isSubscribedToConnectionState = false;
 
-		ArrayList<SensorInterface> sensors = SensorUtils.getAllSensors(appContext);
+		// sensors and their tasks are created on first use, see getSensorTask()
+	}
 
-		for (SensorInterface aSensor : sensors)
-		{
-			AbstractSensorTask sensorTask;
-			if (SensorUtils.isPullSensor(aSensor.getSensorType()))
-			{
-				sensorTask = new PullSensorTask(aSensor);
-			}
-			else
-			{
-				sensorTask = new PushSensorTask(aSensor);
-			}
+	public int subscribeToSensorData(int sensorId, SensorDataListener listener) throws ESException
+	{
+		return subscribeToSensorData(sensorId, listener, null);
+	}
 
-			sensorTask.start();
-			sensorTaskMap.put(aSensor.getSensorType(), sensorTask);
-		}
+	public synchronized int subscribeToSensorData(int sensorId, SensorDataListener listener, SubscriptionConfig config)
+			throws ESException
+	{
+		AbstractSensorTask task = getSensorTask(sensorId);
+		Log.d(TAG, "subscribeToSensorData() subscribing listener to sensorId " + sensorId);
+		Subscription subscription = new Subscription(task, listener, config);
+		return registerSubscription(subscription);
 	}
 
-	public synchronized int subscribeToSensorData(int sensorId, SensorDataListener listener) throws ESException
+	public synchronized int subscribeToSensorDataBatches(int sensorId, SensorDataBatchListener listener,
+			int maxBatchSize, long maxLatencyMillis) throws ESException
 	{
-		AbstractSensorTask task = sensorTaskMap.get(sensorId);
-		if (task != null)
+		if ((maxBatchSize < 1) || (maxLatencyMillis < 0))
 		{
-			if (!isSubscribedToBattery)
-			{
-				// register with battery sensor
-				isSubscribedToBattery = true;
-				batterySubscriptionId = subscribeToSensorData(SensorUtils.SENSOR_TYPE_BATTERY, this);
-			}
-
-			Log.d(TAG, "subscribeToSensorData() subscribing listener to sensorId " + sensorId);
-			Subscription subscription = new Subscription(task, listener);
-			int subscriptionId = subscriptionList.registerSubscription(subscription);
-			return subscriptionId;
+			throw new ESException(ESException.INVALID_PARAMETER, "Invalid batch size: " + maxBatchSize
+					+ " or latency: " + maxLatencyMillis);
 		}
-		else
+
+		AbstractSensorTask task = getSensorTask(sensorId);
+		Log.d(TAG, "subscribeToSensorDataBatches() subscribing listener to sensorId " + sensorId);
+		Subscription subscription = new Subscription(task, listener, maxBatchSize, maxLatencyMillis);
+		return registerSubscription(subscription);
+	}
+
+	private int registerSubscription(Subscription subscription) throws ESException
+	{
+		if (!isSubscribedToBattery)
 		{
-			throw new ESException(ESException.UNKNOWN_SENSOR_TYPE, "Invalid sensor type: " + sensorId);
+			// register with battery sensor
+			isSubscribedToBattery = true;
+			batterySubscriptionId = subscribeToSensorData(SensorUtils.SENSOR_TYPE_BATTERY, this);
 		}
+		return subscriptionList.registerSubscription(subscription);
 	}
 
 	public synchronized void unsubscribeFromSensorData(int subscriptionId) throws ESException
@@ -136,7 +161,8 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 		if (subscription != null)
 		{
 			subscription.unregister();
-			if (subscriptionList.getAllSubscriptions().size() == 1)
+			int internalSubscriptions = isSubscribedToConnectionState ? 2 : 1;
+			if (isSubscribedToBattery && (subscriptionList.size() == internalSubscriptions))
 			{
 				unsubscribeFromSensorData(batterySubscriptionId);
 				isSubscribedToBattery = false;
@@ -150,34 +176,124 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 
 	private AbstractSensorTask getSensorTask(int sensorId) throws ESException
 	{
-		AbstractSensorTask sensorTask = sensorTaskMap.get(sensorId);
-		if (sensorTask == null)
+		synchronized (sensorTaskMap)
 		{
-			throw new ESException(ESException.UNKNOWN_SENSOR_TYPE, "Unknown sensor type: " + sensorId
-					+ ". Have you put the required permissions into your manifest?");
+			AbstractSensorTask sensorTask = sensorTaskMap.get(sensorId);
+			if (sensorTask == null)
+			{
+				// first use of this sensor type: create the sensor and its task
+				long startTime = SystemClock.elapsedRealtime();
+				SensorInterface sensor;
+				try
+				{
+					sensor = SensorUtils.getSensor(sensorId, applicationContext);
+				}
+				catch (ESException exp)
+				{
+					// e.g. a missing permission; the cause is in the message
+					Log.d(TAG, "getSensorTask() cannot create sensor " + sensorId + ": " + exp.getMessage());
+					throw exp;
+				}
+				Log.d(TAG, "getSensorTask() created sensor " + sensorId + " in "
+						+ (SystemClock.elapsedRealtime() - startTime) + " ms");
+
+				if (SensorUtils.isPullSensor(sensorId))
+				{
+					PullSensorTask pullSensorTask = new PullSensorTask(sensor);
+					pullSensorTask.setCircuitBreakerListener(this);
+					sensorTask = pullSensorTask;
+				}
+				else
+				{
+					sensorTask = new PushSensorTask(sensor);
+				}
+				sensorTaskMap.put(sensorId, sensorTask);
+			}
+			return sensorTask;
 		}
-		return sensorTask;
 	}
 
 	public SensorData getDataFromSensor(int sensorId) throws ESException
 	{
-		SensorData sensorData = null;
-		AbstractSensorTask sensorTask = getSensorTask(sensorId);
-		if (!SensorUtils.isPullSensor(sensorTask.getSensorType()))
+		return getPullSensorTask(sensorId).getCurrentSensorData(true);
+	}
+
+	public SensorData getDataFromSensor(int sensorId, long maxAgeMillis) throws ESException
+	{
+		return getPullSensorTask(sensorId).getSensorData(maxAgeMillis);
+	}
+
+	public SensorDataBundle getDataFromSensors(int[] sensorIds) throws ESException
+	{
+		// check every sensor before starting any of them
+		SparseArray<PullSensorTask> tasks = new SparseArray<PullSensorTask>();
+		for (int sensorId : sensorIds)
 		{
-			throw new ESException(ESException.OPERATION_NOT_SUPPORTED, "This method is supported only for pull sensors.");
+			tasks.put(sensorId, getPullSensorTask(sensorId));
 		}
-		else if (sensorTask.isRunning())
+
+		int[] sensorTypes = new int[tasks.size()];
+		for (int i = 0; i < tasks.size(); i++)
 		{
-			throw new ESException(
-					ESException.OPERATION_NOT_SUPPORTED,
-					"This method is supported only for sensors tasks that are not currently running. Please unregister all your listeners to the sensor to call this method.");
+			sensorTypes[i] = tasks.keyAt(i);
 		}
-		else
+
+		// all windows run at the same time on sensing workers, so the
+		// bundle takes as long as the longest window
+		final SensorDataBundle bundle = new SensorDataBundle(sensorTypes, System.currentTimeMillis());
+		final CountDownLatch complete = new CountDownLatch(tasks.size());
+		SensingScheduler scheduler = SensingScheduler.getSensingScheduler();
+		for (int i = 0; i < tasks.size(); i++)
+		{
+			final int sensorType = tasks.keyAt(i);
+			final PullSensorTask task = tasks.valueAt(i);
+			scheduler.execute(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						bundle.setSensorData(sensorType, task.getCurrentSensorData(true));
+					}
+					catch (ESException exp)
+					{
+						bundle.setError(sensorType, exp);
+					}
+					finally
+					{
+						complete.countDown();
+					}
+				}
+			});
+		}
+
+		try
+		{
+			complete.await();
+		}
+		catch (InterruptedException exp)
+		{
+			Thread.currentThread().interrupt();
+			throw new ESException(ESException.INVALID_STATE, "Interrupted while waiting for sensor data.");
+		}
+		bundle.setEndTimestamp(System.currentTimeMillis());
+		return bundle;
+	}
+
+	public SensorData getCachedData(int sensorId, long maxAgeMillis) throws ESException
+	{
+		return getSensorTask(sensorId).getCachedData(maxAgeMillis);
+	}
+
+	private PullSensorTask getPullSensorTask(int sensorId) throws ESException
+	{
+		AbstractSensorTask sensorTask = getSensorTask(sensorId);
+		if (!SensorUtils.isPullSensor(sensorTask.getSensorType()))
 		{
-			sensorData = ((PullSensorTask) sensorTask).getCurrentSensorData(true);
+			throw new ESException(ESException.OPERATION_NOT_SUPPORTED, "This method is supported only for pull sensors.");
 		}
-		return sensorData;
+		// a task that is running shares its current sense with the caller
+		return (PullSensorTask) sensorTask;
 	}
 
 	public void setSensorConfig(int sensorId, String configKey, Object configValue) throws ESException
@@ -235,6 +351,21 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 		return config.getParameter(configKey);
 	}
 
+	public long getStartupMillis()
+	{
+		return startupMillis;
+	}
+
+	public NotificationStatistics getNotificationStatistics()
+	{
+		return NotificationDispatcher.getNotificationDispatcher().getNotificationStatistics();
+	}
+
+	public WakeStatistics getWakeStatistics()
+	{
+		return SensingScheduler.getSensingScheduler().getWakeStatistics();
+	}
+
 	private void acquireWakeLock()
 	{
 		if ((wakeLock != null) && (wakeLock.isHeld()))
@@ -272,9 +403,9 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 		AbstractSensorTask sensorTask = getSensorTask(sensorId);
 		if (SensorUtils.isPullSensor(sensorId))
 		{
-			AbstractPullSensor pullSensor = (AbstractPullSensor) sensorTask.getSensor();
+			// the task applies new sleep lengths to its pending sense
 			AdaptiveSensing.getAdaptiveSensing().registerSensor(sensorManager, sensorTask.getSensor(),
-					SensorUtils.getSensorDataClassifier(sensorId), pullSensor);
+					SensorUtils.getSensorDataClassifier(sensorId), (PullSensorTask) sensorTask);
 		}
 		else
 		{
@@ -300,13 +431,83 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 
 	public void onDataSensed(SensorData data)
 	{
-		// ignore
+		if (data.getSensorType() == SensorUtils.SENSOR_TYPE_CONNECTION_STATE)
+		{
+			synchronized (sensorTaskMap)
+			{
+				for (int i = 0; i < sensorTaskMap.size(); i++)
+				{
+					AbstractSensorTask task = sensorTaskMap.valueAt(i);
+					if (task instanceof PullSensorTask)
+					{
+						((PullSensorTask) task).onSensingConditionsChanged();
+					}
+				}
+			}
+		}
+	}
+
+	public void onCircuitOpened(PullSensorTask task)
+	{
+		openCircuitCount.incrementAndGet();
+		updateConnectionStateSubscription();
+	}
+
+	public void onCircuitClosed(PullSensorTask task)
+	{
+		openCircuitCount.decrementAndGet();
+		updateConnectionStateSubscription();
+	}
+
+	private void updateConnectionStateSubscription()
+	{
+		// the breaker callbacks can arrive with a task's listeners locked,
+		// so (un)subscribing is done on a sensing worker
+		SensingScheduler.getSensingScheduler().execute(new Runnable()
+		{
+			public void run()
+			{
+				synchronized (ESSensorManager.this)
+				{
+					boolean isNeeded = (openCircuitCount.get() > 0);
+					try
+					{
+						if (isNeeded && !isSubscribedToConnectionState)
+						{
+							connectionStateSubscriptionId = subscribeToSensorData(
+									SensorUtils.SENSOR_TYPE_CONNECTION_STATE, ESSensorManager.this);
+							isSubscribedToConnectionState = true;
+						}
+						else if (!isNeeded && isSubscribedToConnectionState)
+						{
+							isSubscribedToConnectionState = false;
+							unsubscribeFromSensorData(connectionStateSubscriptionId);
+						}
+					}
+					catch (ESException exp)
+					{
+						// retried at the next breaker change; the open
+						// period still applies meanwhile
+						Log.d(TAG, "Warning: " + exp.getMessage());
+					}
+				}
+			}
+		});
+	}
+
+	public SenseFailureStatistics getSenseFailureStatistics(int sensorId) throws ESException
+	{
+		AbstractSensorTask sensorTask = getSensorTask(sensorId);
+		if (!(sensorTask instanceof PullSensorTask))
+		{
+			throw new ESException(ESException.OPERATION_NOT_SUPPORTED, "This method is supported only for pull sensors.");
+		}
+		return ((PullSensorTask) sensorTask).getSenseFailureStatistics();
 	}
 
 	public void onCrossingLowBatteryThreshold(boolean isBelowThreshold)
 	{
-		List<Subscription> subscribers = subscriptionList.getAllSubscriptions();
-		for (Subscription sub : subscribers)
+		for (Subscription sub : subscriptionList.getSubscriptions())
 		{
 			if (!(sub.getListener() instanceof ESSensorManager))
 			{
@@ -321,10 +522,46 @@ public class ESSensorManager implements ESSensorManagerInterface, SensorDataList
 		s.pause();
 	}
 
+	public void pauseSubscription(int subscriptionId, boolean bufferSamples) throws ESException
+	{
+		Subscription s = subscriptionList.getSubscription(subscriptionId);
+		if (s == null)
+		{
+			throw new ESException(ESException.INVALID_STATE, "Un-Mapped subscription id: " + subscriptionId);
+		}
+		s.pause(bufferSamples);
+	}
+
+	public void pauseSubscription(int subscriptionId, long pauseLengthMillis, boolean bufferSamples)
+			throws ESException
+	{
+		Subscription s = subscriptionList.getSubscription(subscriptionId);
+		if (s == null)
+		{
+			throw new ESException(ESException.INVALID_STATE, "Un-Mapped subscription id: " + subscriptionId);
+		}
+		s.pause(pauseLengthMillis, bufferSamples);
+	}
+
 	public void unPauseSubscription(int subscriptionId) throws ESException
 	{
 		Subscription s = subscriptionList.getSubscription(subscriptionId);
 		s.unpause();
 	}
 
+	public DeliveryStatistics getDeliveryStatistics(int subscriptionId) throws ESException
+	{
+		Subscription s = subscriptionList.getSubscription(subscriptionId);
+		if (s == null)
+		{
+			throw new ESException(ESException.INVALID_STATE, "Un-Mapped subscription id: " + subscriptionId);
+		}
+		else if (!s.isAsynchronous())
+		{
+			throw new ESException(ESException.OPERATION_NOT_SUPPORTED,
+					"Delivery statistics are only kept for asynchronous subscriptions.");
+		}
+		return s.getDeliveryStatistics();
+	}
+
 }
@@ -22,7 +22,13 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager;
 
+import com.ubhave.sensormanager.config.SubscriptionConfig;
 import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.data.SensorDataBundle;
+import com.ubhave.sensormanager.scheduler.WakeStatistics;
+import com.ubhave.sensormanager.tasks.DeliveryStatistics;
+import com.ubhave.sensormanager.tasks.NotificationStatistics;
+import com.ubhave.sensormanager.tasks.SenseFailureStatistics;
 
 public interface ESSensorManagerInterface
 {
@@ -31,9 +37,29 @@ public interface ESSensorManagerInterface
 	 */
 	public int subscribeToSensorData(int sensorId, SensorDataListener listener) throws ESException;
 
+	// the config selects e.g. asynchronous delivery through a bounded queue,
+	// see SubscriptionConfig
+	public int subscribeToSensorData(int sensorId, SensorDataListener listener, SubscriptionConfig config) throws ESException;
+
+	// samples are delivered as a list once maxBatchSize have accumulated or
+	// maxLatencyMillis after the first sample of the batch, whichever is first
+	public int subscribeToSensorDataBatches(int sensorId, SensorDataBatchListener listener, int maxBatchSize,
+			long maxLatencyMillis) throws ESException;
+
 	public void unsubscribeFromSensorData(int subscriptionId) throws ESException;
 
 	public SensorData getDataFromSensor(int sensorId) throws ESException;
+
+	// returns the latest sample if it is no older than maxAgeMillis,
+	// otherwise senses as getDataFromSensor(sensorId) does
+	public SensorData getDataFromSensor(int sensorId, long maxAgeMillis) throws ESException;
+
+	// senses all of the (pull) sensors at the same time
+	public SensorDataBundle getDataFromSensors(int[] sensorIds) throws ESException;
+
+	// the latest sample of any sensor if it is no older than maxAgeMillis,
+	// otherwise null; never starts sensing
+	public SensorData getCachedData(int sensorId, long maxAgeMillis) throws ESException;
 	
 	/*
 	 * Pause / Unpause
@@ -41,8 +67,33 @@ public interface ESSensorManagerInterface
 	
 	public void pauseSubscription(int subscriptionId) throws ESException;
 	
+	// keeps sensing while paused and delivers what was sensed on unpause
+	public void pauseSubscription(int subscriptionId, boolean bufferSamples) throws ESException;
+
+	// unpauses by itself after pauseLengthMillis
+	public void pauseSubscription(int subscriptionId, long pauseLengthMillis, boolean bufferSamples)
+			throws ESException;
+	
 	public void unPauseSubscription(int subscriptionId) throws ESException;
 	
+	/*
+	 * Delivery queue depth, drops and lag of an asynchronous subscription
+	 */
+	
+	public DeliveryStatistics getDeliveryStatistics(int subscriptionId) throws ESException;
+	
+	/*
+	 * Failure counters and circuit breaker state of a pull sensor
+	 */
+	
+	public SenseFailureStatistics getSenseFailureStatistics(int sensorId) throws ESException;
+
+	/*
+	 * Queue depth and drops of the notification (e.g. low battery) checks
+	 */
+
+	public NotificationStatistics getNotificationStatistics();
+	
 	/*
 	 * Getting/setting configuration parameters
 	 */
@@ -53,5 +104,18 @@ public interface ESSensorManagerInterface
 	public void setGlobalConfig(String configKey, Object configValue) throws ESException;
 	
 	public Object getGlobalConfig(String configKey) throws ESException;
+
+	/*
+	 * How long creating the sensor manager took; sensors are created on
+	 * first use, not at startup
+	 */
+
+	public long getStartupMillis();
+
+	/*
+	 * How often sensing woke up and how long it stayed awake
+	 */
+
+	public WakeStatistics getWakeStatistics();
 	
 }
@@ -22,6 +22,7 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager.classifier;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 
 import com.ubhave.sensormanager.config.SensorManagerConstants;
@@ -35,70 +36,59 @@ public class AccelerometerDataClassifier implements SensorDataClassifier
 	{
 
 		AccelerometerData data = (AccelerometerData) sensorData;
-		ArrayList<float[]> sensorReadings = data.getSensorReadings();
+		int length = data.getLength();
 
-		ArrayList<float[][]> axisData = new ArrayList<float[][]>();
-
-		if (sensorReadings.size() <= 9)
+		if (length <= 9)
 		{
 			// too less data: stationary
 			return false;
 		}
 
-		int vectorsIndex = 0;
+		FloatBuffer xValues = data.getXValues();
+		FloatBuffer yValues = data.getYValues();
+		FloatBuffer zValues = data.getZValues();
+
 		int noOfSets = 3;
+		int status = 0; // Increment when apparently moving, decrement when not
+
+		// Work out magnitude of accelerations for each set of three axis
+		// magnitudes and put them here
+		ArrayList<float[]> scalars = new ArrayList<float[]>();
+
+		// The readings are split into noOfSets consecutive sets, the last
+		// one taking the remainder
+		int readingIndex = 0;
 		for (int setCount = 0; setCount < noOfSets; setCount++)
 		{
 			int size = 0;
 			if (setCount < noOfSets - 1)
 			{
-				size = sensorReadings.size() / noOfSets;
+				size = length / noOfSets;
 			}
 			else
 			{
-				size = sensorReadings.size() - ((noOfSets - 1) * (sensorReadings.size() / noOfSets));
-			}
-			float[][] axisSet = new float[size][3];
-			for (int i = 0; i < axisSet.length; i++)
-			{
-				axisSet[i][0] = sensorReadings.get(vectorsIndex)[0];
-				axisSet[i][1] = sensorReadings.get(vectorsIndex)[1];
-				axisSet[i][2] = sensorReadings.get(vectorsIndex)[2];
-				vectorsIndex++;
+				size = length - ((noOfSets - 1) * (length / noOfSets));
 			}
-			axisData.add(axisSet);
-		}
-
-		int status = 0; // Increment when apparently moving, decrement when not
-
-		// Work out magnitude of accelerations for each set of three axis
-		// magnitudes and put them here
-		ArrayList<float[]> scalars = new ArrayList<float[]>();
-
-		// Each value 'data' is of the form {{x0, y0, z0}, ..., {x24, y24, z24}}
-		for (float[][] readings : axisData)
-		{
-			float[] set = new float[readings.length];
-			// Each set of triples {{x, y z}, ...}
 
-			for (int i = 0; i < readings.length; i++)
+			float[] set = new float[size];
+			for (int i = 0; i < size; i++)
 			{
-				// Each triple {x, y, z}
-				float temp = 0; // Store result of calculation so far
-				for (int j = 0; j < 3; j++)
-				{
-					temp += readings[i][j] * readings[i][j]; // So we calculate
-																// x**2 + y**2 +
-																// z**2
-				}
-				set[i] = temp; // And this is the value for the ith set of
-								// triples
+				// Each reading {x, y, z}: x**2 + y**2 + z**2
+				float x = xValues.get(readingIndex);
+				float y = yValues.get(readingIndex);
+				float z = zValues.get(readingIndex);
+				float temp = 0;
+				temp += x * x;
+				temp += y * y;
+				temp += z * z;
+				set[i] = temp;
+				readingIndex++;
 			}
 			scalars.add(set); // Set of scalars for a sampling interval
 		}
 
 		// Now compute the mean of each set
-		float[] means = new float[axisData.size()];
+		float[] means = new float[scalars.size()];
 		for (int i = 0; i < means.length; i++)
 		{
 			float mean = 0.0f;
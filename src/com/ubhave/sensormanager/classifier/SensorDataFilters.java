@@ -0,0 +1,132 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.classifier;
+
+import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.data.pushsensor.PhoneStateData;
+import com.ubhave.sensormanager.data.pushsensor.ScreenData;
+
+/*
+ * Ready-made filters for SubscriptionConfig.FILTER. Filters are evaluated
+ * once per sample for all subscriptions that share the same instance, so
+ * keep one instance where several subscriptions need the same filter.
+ */
+
+public class SensorDataFilters
+{
+
+	public static SensorDataClassifier screenOn()
+	{
+		return new SensorDataClassifier()
+		{
+			public boolean isInteresting(SensorData sensorData)
+			{
+				return ((ScreenData) sensorData).isOn();
+			}
+		};
+	}
+
+	public static SensorDataClassifier screenOff()
+	{
+		return new SensorDataClassifier()
+		{
+			public boolean isInteresting(SensorData sensorData)
+			{
+				return ((ScreenData) sensorData).isOff();
+			}
+		};
+	}
+
+	// phone state events of the given types, e.g. PhoneStateData.CALL_STATE_RINGING
+	public static SensorDataClassifier phoneStateEvents(final int... eventTypes)
+	{
+		return new SensorDataClassifier()
+		{
+			public boolean isInteresting(SensorData sensorData)
+			{
+				int eventType = ((PhoneStateData) sensorData).getEventType();
+				for (int type : eventTypes)
+				{
+					if (type == eventType)
+					{
+						return true;
+					}
+				}
+				return false;
+			}
+		};
+	}
+
+	// ringing, off-hook, idle and outgoing call events
+	public static SensorDataClassifier callStateEvents()
+	{
+		return phoneStateEvents(PhoneStateData.CALL_STATE_IDLE, PhoneStateData.CALL_STATE_OFFHOOK,
+				PhoneStateData.CALL_STATE_RINGING, PhoneStateData.CALL_STATE_OUTGOING);
+	}
+
+	public static SensorDataClassifier not(final SensorDataClassifier filter)
+	{
+		return new SensorDataClassifier()
+		{
+			public boolean isInteresting(SensorData sensorData)
+			{
+				return !filter.isInteresting(sensorData);
+			}
+		};
+	}
+
+	public static SensorDataClassifier allOf(final SensorDataClassifier... filters)
+	{
+		return new SensorDataClassifier()
+		{
+			public boolean isInteresting(SensorData sensorData)
+			{
+				for (SensorDataClassifier filter : filters)
+				{
+					if (!filter.isInteresting(sensorData))
+					{
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	public static SensorDataClassifier anyOf(final SensorDataClassifier... filters)
+	{
+		return new SensorDataClassifier()
+		{
+			public boolean isInteresting(SensorData sensorData)
+			{
+				for (SensorDataClassifier filter : filters)
+				{
+					if (filter.isInteresting(sensorData))
+					{
+						return true;
+					}
+				}
+				return false;
+			}
+		};
+	}
+}
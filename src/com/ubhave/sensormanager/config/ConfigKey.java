@@ -0,0 +1,90 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.config;
+
+import java.util.HashMap;
+
+/*
+ * A typed config key. Its value is kept in a primitive slot of the config
+ * at the key's index, and values given through the String API are checked
+ * and converted when they are set rather than cast when they are read.
+ */
+
+public abstract class ConfigKey
+{
+	private static final HashMap<String, ConfigKey> keysByName = new HashMap<String, ConfigKey>();
+	private static int keyCount;
+
+	private final String name;
+	private final int index;
+
+	protected ConfigKey(String name)
+	{
+		this.name = name;
+		synchronized (keysByName)
+		{
+			this.index = keyCount++;
+			keysByName.put(name, this);
+		}
+	}
+
+	public static ConfigKey forName(String name)
+	{
+		synchronized (keysByName)
+		{
+			return keysByName.get(name);
+		}
+	}
+
+	static int getKeyCount()
+	{
+		synchronized (keysByName)
+		{
+			return keyCount;
+		}
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	int getIndex()
+	{
+		return index;
+	}
+
+	// throws IllegalArgumentException if the value does not fit the key
+	abstract long toSlot(Object value);
+
+	abstract Object fromSlot(long slot);
+
+	protected IllegalArgumentException invalidValue(Object value)
+	{
+		return new IllegalArgumentException("Invalid value for config key " + name + ": " + value);
+	}
+
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,55 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.config;
+
+/*
+ * A key whose value is one of a fixed set of Strings; the slot holds the
+ * position of the value in that set.
+ */
+
+public class EnumKey extends ConfigKey
+{
+	private final String[] values;
+
+	public EnumKey(String name, String... values)
+	{
+		super(name);
+		this.values = values.clone();
+	}
+
+	long toSlot(Object value)
+	{
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i].equals(value))
+			{
+				return i;
+			}
+		}
+		throw invalidValue(value);
+	}
+
+	Object fromSlot(long slot)
+	{
+		return values[(int) slot];
+	}
+}
@@ -31,6 +31,11 @@ public class GlobalConfig extends AbstractConfig
 	// acquire wake lock
 	public final static String ACQUIRE_WAKE_LOCK = "ACQUIRE_WAKE_LOCK";
 
+	// snap the next sense of each pull sensor onto a wake-up that another
+	// sensor has already scheduled, if one is within the tolerance
+	public final static String ALIGN_WAKEUPS = "ALIGN_WAKEUPS";
+	public final static String WAKE_ALIGNMENT_TOLERANCE_MILLIS = "WAKE_ALIGNMENT_TOLERANCE_MILLIS";
+
 	private static GlobalConfig globalConfig;
 	private static final Object lock = new Object();
 
@@ -53,6 +58,8 @@ public class GlobalConfig extends AbstractConfig
 	{
 		GlobalConfig config = new GlobalConfig();
 		config.setParameter(LOW_BATTERY_THRESHOLD, (Integer) SensorManagerConstants.LOW_BATTERY_THRESHOLD_LEVEL);
+		config.setParameter(ALIGN_WAKEUPS, false);
+		config.setParameter(WAKE_ALIGNMENT_TOLERANCE_MILLIS, SensorManagerConstants.WAKE_ALIGNMENT_TOLERANCE_MILLIS);
 		return config;
 	}
 
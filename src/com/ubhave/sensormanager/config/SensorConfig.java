@@ -60,16 +60,256 @@ public class SensorConfig extends AbstractConfig implements Cloneable
 	// whether adaptive sensing is enabled for all sensors
 	public final static String ADAPTIVE_SENSING_ENABLED = "ADAPTIVE_SENSING";
 
-	public SensorConfig clone()
+	// whether a push sensor recycles its samples (see SensorDataPool)
+	public final static String POOL_SENSOR_DATA = "POOL_SENSOR_DATA";
+
+	// how many samples, and of what maximum age, a sensor keeps in its
+	// history (see SensorDataHistory)
+	public final static String HISTORY_SIZE = "HISTORY_SIZE";
+	public final static String HISTORY_MAX_AGE_MILLIS = "HISTORY_MAX_AGE_MILLIS";
+
+	// typed keys for the parameters above, for reads on the sensing path;
+	// values set through the String names are checked against these
+	public final static LongKey SENSE_WINDOW_LENGTH_MILLIS_KEY = new LongKey(SENSE_WINDOW_LENGTH_MILLIS);
+	public final static IntKey NUMBER_OF_SENSE_CYCLES_KEY = new IntKey(NUMBER_OF_SENSE_CYCLES);
+	public final static LongKey SENSE_WINDOW_LENGTH_PER_CYCLE_MILLIS_KEY = new LongKey(
+			SENSE_WINDOW_LENGTH_PER_CYCLE_MILLIS);
+	public final static LongKey POST_SENSE_SLEEP_LENGTH_MILLIS_KEY = new LongKey(POST_SENSE_SLEEP_LENGTH_MILLIS);
+	public final static IntKey ACCELEROMETER_SAMPLING_DELAY_KEY = new IntKey(ACCELEROMETER_SAMPLING_DELAY);
+	public final static BoolKey DATA_SET_RAW_VALUES_KEY = new BoolKey(DATA_SET_RAW_VALUES);
+	public final static BoolKey DATA_EXTRACT_FEATURES_KEY = new BoolKey(DATA_EXTRACT_FEATURES);
+	public final static EnumKey LOCATION_ACCURACY_KEY = new EnumKey(LOCATION_ACCURACY, LOCATION_ACCURACY_COARSE,
+			LOCATION_ACCURACY_FINE);
+	public final static BoolKey ADAPTIVE_SENSING_ENABLED_KEY = new BoolKey(ADAPTIVE_SENSING_ENABLED);
+	public final static BoolKey POOL_SENSOR_DATA_KEY = new BoolKey(POOL_SENSOR_DATA);
+	public final static IntKey HISTORY_SIZE_KEY = new IntKey(HISTORY_SIZE);
+	public final static LongKey HISTORY_MAX_AGE_MILLIS_KEY = new LongKey(HISTORY_MAX_AGE_MILLIS);
+
+	/*
+	 * A sensor's live config can be changed at any time; the samples it
+	 * produces share a read-only snapshot of it instead of a clone each.
+	 * Changes are made under the live config's lock and then republish the
+	 * snapshot through a volatile field, which every read goes through, so
+	 * reads on the sensing path never lock. A snapshot carries the version
+	 * of the config it was taken from.
+	 *
+	 * Parameters with a typed key live in primitive slots indexed by the
+	 * key; any other parameter stays in the String map.
+	 */
+	private final boolean isReadOnly;
+	private long version;
+	private volatile SensorConfig snapshot;
+	private long[] slots;
+	private boolean[] isSlotSet;
+
+	public SensorConfig()
+	{
+		super();
+		isReadOnly = false;
+		slots = new long[ConfigKey.getKeyCount()];
+		isSlotSet = new boolean[slots.length];
+		snapshot = new SensorConfig(this, true);
+	}
+
+	private SensorConfig(SensorConfig source, boolean isReadOnly)
+	{
+		super();
+		configParams.putAll(source.configParams);
+		slots = source.slots.clone();
+		isSlotSet = source.isSlotSet.clone();
+		version = source.version;
+		this.isReadOnly = isReadOnly;
+		if (!isReadOnly)
+		{
+			snapshot = new SensorConfig(this, true);
+		}
+	}
+
+	// what reads go to: a snapshot is never changed once published
+	private SensorConfig current()
+	{
+		return isReadOnly ? this : snapshot;
+	}
+
+	// called under the lock after every change
+	private void publish()
+	{
+		version++;
+		snapshot = new SensorConfig(this, true);
+	}
+
+	/*
+	 * String API
+	 */
+
+	// throws IllegalArgumentException if the value does not fit a typed key
+	public synchronized void setParameter(String parameterName, Object parameterValue)
+	{
+		checkWritable();
+		ConfigKey key = ConfigKey.forName(parameterName);
+		if (key != null)
+		{
+			setSlot(key, key.toSlot(parameterValue));
+		}
+		else
+		{
+			super.setParameter(parameterName, parameterValue);
+			publish();
+		}
+	}
+
+	public synchronized void removeParameter(String parameterName)
+	{
+		checkWritable();
+		ConfigKey key = ConfigKey.forName(parameterName);
+		if (key != null)
+		{
+			if (isSet(key))
+			{
+				isSlotSet[key.getIndex()] = false;
+				publish();
+			}
+		}
+		else if (configParams.containsKey(parameterName))
+		{
+			super.removeParameter(parameterName);
+			publish();
+		}
+	}
+
+	public Object getParameter(String parameterName)
+	{
+		SensorConfig current = current();
+		ConfigKey key = ConfigKey.forName(parameterName);
+		if (key != null)
+		{
+			return current.isSet(key) ? key.fromSlot(current.slots[key.getIndex()]) : null;
+		}
+		return current.configParams.get(parameterName);
+	}
+
+	public boolean containsParameter(String parameterName)
+	{
+		SensorConfig current = current();
+		ConfigKey key = ConfigKey.forName(parameterName);
+		if (key != null)
+		{
+			return current.isSet(key);
+		}
+		return current.configParams.containsKey(parameterName);
+	}
+
+	/*
+	 * Typed API
+	 */
+
+	public boolean contains(ConfigKey key)
+	{
+		return current().isSet(key);
+	}
+
+	public long getLong(LongKey key, long defaultValue)
+	{
+		SensorConfig current = current();
+		return current.isSet(key) ? current.slots[key.getIndex()] : defaultValue;
+	}
+
+	public int getInt(IntKey key, int defaultValue)
+	{
+		SensorConfig current = current();
+		return current.isSet(key) ? (int) current.slots[key.getIndex()] : defaultValue;
+	}
+
+	public boolean getBoolean(BoolKey key, boolean defaultValue)
+	{
+		SensorConfig current = current();
+		return current.isSet(key) ? (current.slots[key.getIndex()] != 0) : defaultValue;
+	}
+
+	public String getEnum(EnumKey key, String defaultValue)
+	{
+		SensorConfig current = current();
+		return current.isSet(key) ? (String) key.fromSlot(current.slots[key.getIndex()]) : defaultValue;
+	}
+
+	public synchronized void set(LongKey key, long value)
+	{
+		checkWritable();
+		setSlot(key, value);
+	}
+
+	public synchronized void set(IntKey key, int value)
+	{
+		checkWritable();
+		setSlot(key, value);
+	}
+
+	public synchronized void set(BoolKey key, boolean value)
+	{
+		checkWritable();
+		setSlot(key, value ? 1 : 0);
+	}
+
+	// throws IllegalArgumentException if value is not one of the key's values
+	public synchronized void set(EnumKey key, String value)
 	{
-		SensorConfig clonedSensorConfig = new SensorConfig();
-		for (String key : configParams.keySet())
+		checkWritable();
+		setSlot(key, key.toSlot(value));
+	}
+
+	private boolean isSet(ConfigKey key)
+	{
+		int index = key.getIndex();
+		return (index < isSlotSet.length) && isSlotSet[index];
+	}
+
+	private void setSlot(ConfigKey key, long value)
+	{
+		int index = key.getIndex();
+		if (index >= slots.length)
 		{
-			Object obj = configParams.get(key);
-			clonedSensorConfig.setParameter(key, obj);
+			// a key created after this config was
+			int size = ConfigKey.getKeyCount();
+			long[] newSlots = new long[size];
+			boolean[] newIsSlotSet = new boolean[size];
+			System.arraycopy(slots, 0, newSlots, 0, slots.length);
+			System.arraycopy(isSlotSet, 0, newIsSlotSet, 0, isSlotSet.length);
+			slots = newSlots;
+			isSlotSet = newIsSlotSet;
 		}
+		slots[index] = value;
+		isSlotSet[index] = true;
+		publish();
+	}
+
+	private void checkWritable()
+	{
+		if (isReadOnly)
+		{
+			throw new UnsupportedOperationException("sensor config snapshots are read-only, clone() them to modify");
+		}
+	}
 
-		return clonedSensorConfig;
+	public boolean isReadOnly()
+	{
+		return isReadOnly;
+	}
+
+	public long getVersion()
+	{
+		return current().version;
+	}
+
+	// a read-only copy of the current parameters, shared until they change
+	public SensorConfig getSnapshot()
+	{
+		return current();
+	}
+
+	// a modifiable copy, also of a snapshot
+	public SensorConfig clone()
+	{
+		return new SensorConfig(current(), false);
 	}
 
 }
@@ -48,6 +48,40 @@ public class SensorManagerConstants
 	public static final long WIFI_SLEEP_INTERVAL = 15 * 60 * 1000;
 	public static final long APPLICATON_SLEEP_INTERVAL = 5 * 60 * 1000;
 
+	// idle time after which a sensing worker thread exits
+	public static final long SENSING_WORKER_KEEP_ALIVE_MILLIS = 60 * 1000;
+	// sensing worker threads on top of one per processor; further jobs wait
+	// in the scheduler's queue
+	public static final int SENSING_WORKER_EXTRA_THREADS = 2;
+	// wait before retrying a pull sensor that failed to sense, doubled for
+	// each further consecutive failure up to the maximum
+	public static final long SENSE_RETRY_BASE_MILLIS = 10 * 1000;
+	public static final long SENSE_RETRY_MAX_MILLIS = 15 * 60 * 1000;
+	// consecutive failures after which a pull sensor is only retried once
+	// per open period, or early when conditions change
+	public static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+	public static final long CIRCUIT_BREAKER_OPEN_MILLIS = 60 * 60 * 1000;
+	// maximum number of sensor data notifications waiting to be processed
+	public static final int NOTIFICATION_QUEUE_CAPACITY = 256;
+	// default number of samples an asynchronous subscription can have queued
+	public static final int DELIVERY_QUEUE_CAPACITY = 32;
+	// number of recent samples each sensor task keeps for cached reads and
+	// replay to new subscribers
+	public static final int SAMPLE_CACHE_SIZE = 10;
+	// samples kept for a subscription paused in buffered mode
+	public static final int PAUSE_BUFFER_CAPACITY = 64;
+	// recycled samples kept per pooled push sensor
+	public static final int SENSOR_DATA_POOL_SIZE = 16;
+	// samples kept in each sensor's history; a max age of 0 means no limit
+	public static final int SENSOR_HISTORY_SIZE = 5;
+	public static final long SENSOR_HISTORY_MAX_AGE_MILLIS = 0;
+	// how far a pull sensor's next sense may move to share a wake-up with
+	// other sensors, when aligned wake-ups are enabled
+	public static final long WAKE_ALIGNMENT_TOLERANCE_MILLIS = 30 * 1000;
+	// resolution and number of buckets of the sensing scheduler's timing wheel
+	public static final long TIMING_WHEEL_TICK_MILLIS = 100;
+	public static final int TIMING_WHEEL_SIZE = 512;
+
 	// low battery threshold
 	public static final int LOW_BATTERY_THRESHOLD_LEVEL = 20;
 
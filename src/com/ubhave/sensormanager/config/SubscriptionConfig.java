@@ -0,0 +1,137 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+
+package com.ubhave.sensormanager.config;
+
+import com.ubhave.sensormanager.classifier.SensorDataClassifier;
+
+public class SubscriptionConfig extends AbstractConfig
+{
+
+	// how sensor data is handed to the subscription's listener: synchronously
+	// on the thread that sensed it, or through a queue drained by the
+	// subscription's own delivery worker
+	public final static String DELIVERY_MODE = "DELIVERY_MODE";
+	public final static String DELIVERY_SYNCHRONOUS = "DELIVERY_SYNCHRONOUS";
+	public final static String DELIVERY_ASYNCHRONOUS = "DELIVERY_ASYNCHRONOUS";
+
+	// maximum number of samples waiting in an asynchronous delivery queue
+	public final static String DELIVERY_QUEUE_CAPACITY = "DELIVERY_QUEUE_CAPACITY";
+
+	// what happens when a sample arrives and the delivery queue is full
+	public final static String DELIVERY_OVERFLOW_POLICY = "DELIVERY_OVERFLOW_POLICY";
+	// discard the oldest queued sample
+	public final static String OVERFLOW_DROP_OLDEST = "OVERFLOW_DROP_OLDEST";
+	// discard the arriving sample
+	public final static String OVERFLOW_DROP_NEWEST = "OVERFLOW_DROP_NEWEST";
+	// block the sensing thread until there is space
+	public final static String OVERFLOW_BLOCK = "OVERFLOW_BLOCK";
+	// replace everything queued with the arriving sample
+	public final static String OVERFLOW_COALESCE_LATEST = "OVERFLOW_COALESCE_LATEST";
+
+	// the least time (in milliseconds) between two samples delivered to this
+	// subscription; a pull sensor senses as often as its most frequent
+	// subscription needs, and the others get every n-th sample
+	public final static String SAMPLING_INTERVAL_MILLIS = "SAMPLING_INTERVAL_MILLIS";
+
+	// the least sense window (in milliseconds) this subscription needs; a
+	// pull sensor's window is the longest any of its subscriptions needs
+	public final static String SENSE_WINDOW_LENGTH_MILLIS = "SENSE_WINDOW_LENGTH_MILLIS";
+
+	// a SensorDataClassifier; samples it does not find interesting are not
+	// delivered to (or queued for) this subscription. See SensorDataFilters
+	public final static String FILTER = "FILTER";
+
+	// number of recent samples (Integer, up to SensorManagerConstants.SAMPLE_CACHE_SIZE)
+	// delivered to the subscription when it is created, on the subscribing thread
+	public final static String REPLAY_COUNT = "REPLAY_COUNT";
+
+	public static SubscriptionConfig getDefaultSubscriptionConfig()
+	{
+		SubscriptionConfig config = new SubscriptionConfig();
+		config.setParameter(DELIVERY_MODE, DELIVERY_SYNCHRONOUS);
+		config.setParameter(DELIVERY_QUEUE_CAPACITY, SensorManagerConstants.DELIVERY_QUEUE_CAPACITY);
+		config.setParameter(DELIVERY_OVERFLOW_POLICY, OVERFLOW_DROP_OLDEST);
+		return config;
+	}
+
+	public boolean isAsynchronousDelivery()
+	{
+		return DELIVERY_ASYNCHRONOUS.equals(getParameter(DELIVERY_MODE));
+	}
+
+	public int getDeliveryQueueCapacity()
+	{
+		if (containsParameter(DELIVERY_QUEUE_CAPACITY))
+		{
+			return ((Number) getParameter(DELIVERY_QUEUE_CAPACITY)).intValue();
+		}
+		return SensorManagerConstants.DELIVERY_QUEUE_CAPACITY;
+	}
+
+	public long getSamplingIntervalMillis()
+	{
+		if (containsParameter(SAMPLING_INTERVAL_MILLIS))
+		{
+			return ((Number) getParameter(SAMPLING_INTERVAL_MILLIS)).longValue();
+		}
+		return 0;
+	}
+
+	public long getSenseWindowLengthMillis()
+	{
+		if (containsParameter(SENSE_WINDOW_LENGTH_MILLIS))
+		{
+			return ((Number) getParameter(SENSE_WINDOW_LENGTH_MILLIS)).longValue();
+		}
+		return 0;
+	}
+
+	public boolean hasSamplingRequirements()
+	{
+		return (getSamplingIntervalMillis() > 0) || (getSenseWindowLengthMillis() > 0);
+	}
+
+	public int getReplayCount()
+	{
+		if (containsParameter(REPLAY_COUNT))
+		{
+			return ((Number) getParameter(REPLAY_COUNT)).intValue();
+		}
+		return 0;
+	}
+
+	public SensorDataClassifier getFilter()
+	{
+		return (SensorDataClassifier) getParameter(FILTER);
+	}
+
+	public String getDeliveryOverflowPolicy()
+	{
+		if (containsParameter(DELIVERY_OVERFLOW_POLICY))
+		{
+			return (String) getParameter(DELIVERY_OVERFLOW_POLICY);
+		}
+		return OVERFLOW_DROP_OLDEST;
+	}
+
+}
@@ -24,19 +24,25 @@ package com.ubhave.sensormanager.data;
 
 import com.ubhave.sensormanager.config.SensorConfig;
 
-public abstract class SensorData
+public abstract class SensorData implements Cloneable
 {
 	// for pull sensor: this is the time at which sensing
 	// cycle is started
 	// for push sensor: this is the time at which data is
 	// received by the sensor
-	private final long sensorDataTimestamp;
+	private long sensorDataTimestamp;
 
-	private SensorData prevSensorData;
+	// the history of the sensor that produced this sample, if any
+	private SensorDataHistory history;
+	private long historySequence;
 	protected boolean isDataProcessed;
 
 	private SensorConfig sensorConfig;
 
+	// set for samples taken from a SensorDataPool
+	private SensorDataPool<?> pool;
+	private int referenceCount;
+
 	public abstract int getSensorType();
 
 	public SensorData(long sensorTimestamp, SensorConfig config)
@@ -46,6 +52,81 @@ public abstract class SensorData
 		isDataProcessed = false;
 	}
 	
+	/*
+	 * A pooled sample goes back to its pool once the framework has delivered
+	 * it to the synchronous listeners. A listener that keeps one beyond
+	 * onDataSensed() must retain() it and release() it when done, or keep a
+	 * copy() instead. Both are no-ops for samples that are not pooled.
+	 */
+	public SensorData retain()
+	{
+		if (pool != null)
+		{
+			synchronized (this)
+			{
+				referenceCount++;
+			}
+		}
+		return this;
+	}
+
+	public void release()
+	{
+		if (pool != null)
+		{
+			boolean isFree;
+			synchronized (this)
+			{
+				isFree = (--referenceCount == 0);
+			}
+			if (isFree)
+			{
+				pool.recycle(this);
+			}
+		}
+	}
+
+	public boolean isPooled()
+	{
+		return pool != null;
+	}
+
+	// a shallow copy that is never recycled
+	public SensorData copy()
+	{
+		try
+		{
+			SensorData copy = (SensorData) super.clone();
+			copy.pool = null;
+			copy.referenceCount = 0;
+			return copy;
+		}
+		catch (CloneNotSupportedException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// called by the pool each time the instance is handed out again
+	void onAcquire(SensorDataPool<?> pool, long sensorTimestamp, SensorConfig config)
+	{
+		this.pool = pool;
+		synchronized (this)
+		{
+			referenceCount = 1;
+		}
+		sensorDataTimestamp = sensorTimestamp;
+		sensorConfig = config;
+		history = null;
+		isDataProcessed = false;
+		reset();
+	}
+
+	// pooled types clear the values of their previous use here
+	protected void reset()
+	{
+	}
+
 	public void setDataProcessed(boolean value)
 	{
 		isDataProcessed = value;
@@ -66,22 +147,35 @@ public abstract class SensorData
 		return sensorConfig;
 	}
 
+	public void setSensorConfig(SensorConfig config)
+	{
+		this.sensorConfig = config;
+	}
+
+	public SensorDataHistory getHistory()
+	{
+		return history;
+	}
+
+	// the sample the same sensor produced before this one, while it is
+	// still in the sensor's history
 	public SensorData getPrevSensorData()
 	{
-		return prevSensorData;
+		return getPrevSensorData(1);
 	}
 
-	public void setPrevSensorData(SensorData prevSensorData)
+	public SensorData getPrevSensorData(int stepsBack)
 	{
-		// when a sensordata object is set as prev to
-		// another sensordata
-		// object then its prev should be set to null to
-		// avoid memory leaks
-		if (prevSensorData != null)
+		if (history == null)
 		{
-			prevSensorData.setPrevSensorData(null);
+			return null;
 		}
+		return history.getBySequence(historySequence - stepsBack);
+	}
 
-		this.prevSensorData = prevSensorData;
+	void setHistory(SensorDataHistory history, long sequence)
+	{
+		this.history = history;
+		this.historySequence = sequence;
 	}
 }
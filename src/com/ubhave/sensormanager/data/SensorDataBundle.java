@@ -0,0 +1,97 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.data;
+
+import android.util.SparseArray;
+
+import com.ubhave.sensormanager.ESException;
+
+/*
+ * Samples from several pull sensors whose sense windows were started together
+ * (see ESSensorManagerInterface.getDataFromSensors). A sensor that failed to
+ * sense has an error instead of data.
+ */
+
+public class SensorDataBundle
+{
+	private final int[] sensorTypes;
+	private final SparseArray<SensorData> sensorData;
+	private final SparseArray<ESException> errors;
+	private final long startTimestamp;
+	private long endTimestamp;
+
+	public SensorDataBundle(int[] sensorTypes, long startTimestamp)
+	{
+		this.sensorTypes = sensorTypes;
+		this.sensorData = new SparseArray<SensorData>();
+		this.errors = new SparseArray<ESException>();
+		this.startTimestamp = startTimestamp;
+	}
+
+	public synchronized void setSensorData(int sensorType, SensorData data)
+	{
+		sensorData.put(sensorType, data);
+	}
+
+	public synchronized void setError(int sensorType, ESException error)
+	{
+		errors.put(sensorType, error);
+	}
+
+	public synchronized void setEndTimestamp(long timestamp)
+	{
+		endTimestamp = timestamp;
+	}
+
+	public int[] getSensorTypes()
+	{
+		return sensorTypes.clone();
+	}
+
+	// null if the sensor failed or sensed nothing
+	public synchronized SensorData getSensorData(int sensorType)
+	{
+		return sensorData.get(sensorType);
+	}
+
+	public synchronized ESException getError(int sensorType)
+	{
+		return errors.get(sensorType);
+	}
+
+	public synchronized boolean isComplete()
+	{
+		return errors.size() == 0;
+	}
+
+	// when all sense windows were started
+	public long getStartTimestamp()
+	{
+		return startTimestamp;
+	}
+
+	// when the last sense window ended
+	public synchronized long getEndTimestamp()
+	{
+		return endTimestamp;
+	}
+}
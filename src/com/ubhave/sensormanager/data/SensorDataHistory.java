@@ -0,0 +1,150 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.data;
+
+/*
+ * The last samples of one sensor, kept in a bounded ring and shared by
+ * everything that reads them (classifiers, adaptive sensing, listeners).
+ * Each sample records its sequence number in the history, so the samples
+ * before it are found by index rather than through a chain of links.
+ * Samples older than the maximum age are treated as gone; a maximum age
+ * of 0 keeps samples of any age. Only the sensor that owns the history,
+ * through its Writer, adds samples or changes the limits.
+ */
+
+public class SensorDataHistory
+{
+	private SensorData[] samples;
+	private long maxAgeMillis;
+	// samples ever added; the latest has sequence number count - 1
+	private long count;
+
+	/*
+	 * Held by the sensor that owns the history; everyone else gets the
+	 * read-only history.
+	 */
+	public static final class Writer
+	{
+		private final SensorDataHistory history;
+
+		public Writer(int capacity, long maxAgeMillis)
+		{
+			history = new SensorDataHistory(capacity, maxAgeMillis);
+		}
+
+		public SensorDataHistory getHistory()
+		{
+			return history;
+		}
+
+		// called by the sensor for each sample it produces
+		public void add(SensorData sensorData)
+		{
+			history.add(sensorData);
+		}
+
+		// keeps the latest samples that still fit
+		public void setLimits(int capacity, long maxAgeMillis)
+		{
+			history.setLimits(capacity, maxAgeMillis);
+		}
+	}
+
+	private SensorDataHistory(int capacity, long maxAgeMillis)
+	{
+		this.samples = new SensorData[Math.max(1, capacity)];
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	private synchronized void add(SensorData sensorData)
+	{
+		int index = (int) (count % samples.length);
+		if (samples[index] != null)
+		{
+			samples[index].release();
+		}
+		samples[index] = sensorData.retain();
+		sensorData.setHistory(this, count);
+		count++;
+	}
+
+	// 0 is the latest sample, 1 the one before it and so on
+	public synchronized SensorData get(int age)
+	{
+		if (age < 0)
+		{
+			return null;
+		}
+		return getBySequence(count - 1 - age);
+	}
+
+	synchronized SensorData getBySequence(long sequence)
+	{
+		if ((sequence < 0) || (sequence >= count) || (sequence < count - samples.length))
+		{
+			return null;
+		}
+
+		SensorData sensorData = samples[(int) (sequence % samples.length)];
+		if ((maxAgeMillis > 0) && (System.currentTimeMillis() - sensorData.getTimestamp() > maxAgeMillis))
+		{
+			return null;
+		}
+		return sensorData;
+	}
+
+	public synchronized int size()
+	{
+		return (int) Math.min(count, samples.length);
+	}
+
+	public synchronized int getCapacity()
+	{
+		return samples.length;
+	}
+
+	private synchronized void setLimits(int capacity, long maxAgeMillis)
+	{
+		this.maxAgeMillis = maxAgeMillis;
+		capacity = Math.max(1, capacity);
+		if (capacity == samples.length)
+		{
+			return;
+		}
+
+		SensorData[] resized = new SensorData[capacity];
+		long first = Math.max(0, count - samples.length);
+		for (long sequence = first; sequence < count; sequence++)
+		{
+			SensorData sensorData = samples[(int) (sequence % samples.length)];
+			if (sequence >= count - capacity)
+			{
+				resized[(int) (sequence % capacity)] = sensorData;
+			}
+			else
+			{
+				sensorData.release();
+			}
+		}
+		samples = resized;
+	}
+}
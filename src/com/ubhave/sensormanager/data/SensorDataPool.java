@@ -0,0 +1,93 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.data;
+
+import com.ubhave.sensormanager.config.SensorConfig;
+
+/*
+ * Recycles the samples of one push sensor, for sensors that fire often
+ * enough for their garbage to matter. Samples come back through
+ * SensorData.release() when the last holder is done with them; at most
+ * capacity of them are kept for reuse, the rest are left to the collector.
+ */
+
+public abstract class SensorDataPool<T extends SensorData>
+{
+	private final SensorData[] free;
+	private int freeCount;
+	private long createdCount;
+	private long reusedCount;
+
+	public SensorDataPool(int capacity)
+	{
+		free = new SensorData[Math.max(1, capacity)];
+	}
+
+	protected abstract T create(long sensorTimestamp, SensorConfig config);
+
+	// the returned sample holds one reference, owned by the caller
+	@SuppressWarnings("unchecked")
+	public T acquire(long sensorTimestamp, SensorConfig config)
+	{
+		T data = null;
+		synchronized (this)
+		{
+			if (freeCount > 0)
+			{
+				freeCount--;
+				data = (T) free[freeCount];
+				free[freeCount] = null;
+				reusedCount++;
+			}
+			else
+			{
+				createdCount++;
+			}
+		}
+
+		if (data == null)
+		{
+			data = create(sensorTimestamp, config);
+		}
+		data.onAcquire(this, sensorTimestamp, config);
+		return data;
+	}
+
+	synchronized void recycle(SensorData data)
+	{
+		if (freeCount < free.length)
+		{
+			free[freeCount] = data;
+			freeCount++;
+		}
+	}
+
+	public synchronized long getCreatedCount()
+	{
+		return createdCount;
+	}
+
+	public synchronized long getReusedCount()
+	{
+		return reusedCount;
+	}
+}
@@ -22,6 +22,8 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager.data.pullsensor;
 
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 
 import com.ubhave.sensormanager.config.SensorConfig;
@@ -30,6 +32,15 @@ import com.ubhave.sensormanager.sensors.SensorUtils;
 
 public class AccelerometerData extends SensorData
 {
+	// readings are kept column-wise: the i-th reading is
+	// (xValues[i], yValues[i], zValues[i]) sensed at timestamps[i]
+	private float[] xValues;
+	private float[] yValues;
+	private float[] zValues;
+	private long[] timestamps;
+	private int length;
+
+	// built on demand for getSensorReadings() callers
 	private ArrayList<float[]> sensorReadings;
 	private ArrayList<Long> sensorReadingTimestamps;
 
@@ -37,24 +48,120 @@ public class AccelerometerData extends SensorData
 	{
 		super(senseStartTimestamp, sensorConfig);
 	}
-	
-	public void setSensorReadings(ArrayList<float[]> sensorReadings)
+
+	/*
+	 * The arrays are taken over, not copied: only their first length
+	 * entries are readings and the caller must not write to them afterwards.
+	 */
+	public synchronized void setSensorReadings(float[] xValues, float[] yValues, float[] zValues, long[] timestamps,
+			int length)
+	{
+		this.xValues = xValues;
+		this.yValues = yValues;
+		this.zValues = zValues;
+		this.timestamps = timestamps;
+		this.length = length;
+		this.sensorReadings = null;
+		this.sensorReadingTimestamps = null;
+	}
+
+	public int getLength()
+	{
+		return length;
+	}
+
+	public FloatBuffer getXValues()
+	{
+		return readOnly(xValues);
+	}
+
+	public FloatBuffer getYValues()
+	{
+		return readOnly(yValues);
+	}
+
+	public FloatBuffer getZValues()
+	{
+		return readOnly(zValues);
+	}
+
+	public LongBuffer getTimestamps()
+	{
+		if (timestamps == null)
+		{
+			return null;
+		}
+		return LongBuffer.wrap(timestamps, 0, length).slice().asReadOnlyBuffer();
+	}
+
+	private FloatBuffer readOnly(float[] values)
 	{
-		this.sensorReadings = sensorReadings;
+		if (values == null)
+		{
+			return null;
+		}
+		return FloatBuffer.wrap(values, 0, length).slice().asReadOnlyBuffer();
 	}
 
-	public ArrayList<float[]> getSensorReadings()
+	public synchronized void setSensorReadings(ArrayList<float[]> sensorReadings)
 	{
+		int size = sensorReadings.size();
+		float[] x = new float[size];
+		float[] y = new float[size];
+		float[] z = new float[size];
+		for (int i = 0; i < size; i++)
+		{
+			float[] reading = sensorReadings.get(i);
+			x[i] = reading[0];
+			y[i] = reading[1];
+			z[i] = reading[2];
+		}
+
+		long[] t = timestamps;
+		if ((t == null) || (t.length < size))
+		{
+			t = new long[size];
+		}
+		setSensorReadings(x, y, z, t, size);
+	}
+
+	// compatibility view of the readings, one {x, y, z} array per reading
+	public synchronized ArrayList<float[]> getSensorReadings()
+	{
+		if ((sensorReadings == null) && (xValues != null))
+		{
+			sensorReadings = new ArrayList<float[]>(length);
+			for (int i = 0; i < length; i++)
+			{
+				sensorReadings.add(new float[] { xValues[i], yValues[i], zValues[i] });
+			}
+		}
 		return sensorReadings;
 	}
-	
-	public void setSensorReadingTimestamps(ArrayList<Long> sensorReadingTimestamps)
+
+	public synchronized void setSensorReadingTimestamps(ArrayList<Long> sensorReadingTimestamps)
 	{
-		this.sensorReadingTimestamps = sensorReadingTimestamps;
+		int size = sensorReadingTimestamps.size();
+		long[] t = new long[Math.max(size, length)];
+		for (int i = 0; i < size; i++)
+		{
+			t[i] = sensorReadingTimestamps.get(i);
+		}
+		this.timestamps = t;
+		this.sensorReadingTimestamps = null;
 	}
-	
-	public ArrayList<Long> getSensorReadingTimestamps()
+
+	// compatibility view of the reading timestamps
+	public synchronized ArrayList<Long> getSensorReadingTimestamps()
 	{
+		if ((sensorReadingTimestamps == null) && (timestamps != null))
+		{
+			sensorReadingTimestamps = new ArrayList<Long>(length);
+			for (int i = 0; i < length; i++)
+			{
+				sensorReadingTimestamps.add(timestamps[i]);
+			}
+		}
 		return sensorReadingTimestamps;
 	}
 
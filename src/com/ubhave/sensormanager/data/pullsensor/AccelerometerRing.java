@@ -0,0 +1,110 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.data.pullsensor;
+
+/*
+ * Readings of one accelerometer sense window, kept in a preallocated ring
+ * stored column-wise. A single thread writes: it fills the slot and then
+ * publishes it through the volatile writeCount, so write() neither locks
+ * nor allocates. The ring is drained once the window has ended; if it
+ * fills up the oldest readings are overwritten.
+ */
+
+public class AccelerometerRing
+{
+	private float[] xValues;
+	private float[] yValues;
+	private float[] zValues;
+	private long[] timestamps;
+	private volatile int writeCount;
+
+	public AccelerometerRing(int capacity)
+	{
+		allocate(Math.max(1, capacity));
+	}
+
+	private void allocate(int capacity)
+	{
+		xValues = new float[capacity];
+		yValues = new float[capacity];
+		zValues = new float[capacity];
+		timestamps = new long[capacity];
+	}
+
+	// empties the ring, growing it if it holds fewer than capacity readings
+	public void reset(int capacity)
+	{
+		if (xValues.length < capacity)
+		{
+			allocate(capacity);
+		}
+		writeCount = 0;
+	}
+
+	public void write(float x, float y, float z, long timestamp)
+	{
+		int count = writeCount;
+		int index = count % xValues.length;
+		xValues[index] = x;
+		yValues[index] = y;
+		zValues[index] = z;
+		timestamps[index] = timestamp;
+		writeCount = count + 1;
+	}
+
+	public int getCapacity()
+	{
+		return xValues.length;
+	}
+
+	// readings currently held, at most the capacity
+	public int size()
+	{
+		return Math.min(writeCount, xValues.length);
+	}
+
+	/*
+	 * Copies the readings held, oldest first, into arrays of at least size()
+	 * elements and returns how many were copied.
+	 */
+	public int drain(float[] x, float[] y, float[] z, long[] t)
+	{
+		int count = writeCount;
+		int capacity = xValues.length;
+		int length = Math.min(count, capacity);
+		int first = (count - length) % capacity;
+
+		// the oldest readings run to the end of the arrays, the rest wrap
+		int head = Math.min(length, capacity - first);
+		System.arraycopy(xValues, first, x, 0, head);
+		System.arraycopy(yValues, first, y, 0, head);
+		System.arraycopy(zValues, first, z, 0, head);
+		System.arraycopy(timestamps, first, t, 0, head);
+
+		int tail = length - head;
+		System.arraycopy(xValues, 0, x, head, tail);
+		System.arraycopy(yValues, 0, y, head, tail);
+		System.arraycopy(zValues, 0, z, head, tail);
+		System.arraycopy(timestamps, 0, t, head, tail);
+		return length;
+	}
+}
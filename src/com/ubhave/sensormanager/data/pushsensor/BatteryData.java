@@ -125,6 +125,17 @@ public class BatteryData extends SensorData
 		}
 	}
 
+	protected void reset()
+	{
+		level = 0;
+		scale = 0;
+		temperature = 0;
+		voltage = 0;
+		plugged = 0;
+		status = 0;
+		health = 0;
+	}
+
 	public int getSensorType()
 	{
 		return SensorUtils.SENSOR_TYPE_BATTERY;
@@ -161,6 +161,16 @@ public class ConnectionStateData extends SensorData
 		return roamingType;
 	}
 
+	protected void reset()
+	{
+		isConnectedOrConnecting = false;
+		isConnected = false;
+		isAvailable = false;
+		networkType = 0;
+		roamingType = 0;
+		ssid = null;
+	}
+
 	@Override
 	public int getSensorType()
 	{
@@ -91,6 +91,13 @@ public class PhoneStateData extends SensorData
 		return eventType == CALL_STATE_IDLE;
 	}
 
+	protected void reset()
+	{
+		eventType = 0;
+		data = null;
+		number = null;
+	}
+
 	public int getSensorType()
 	{
 		return SensorUtils.SENSOR_TYPE_PHONE_STATE;
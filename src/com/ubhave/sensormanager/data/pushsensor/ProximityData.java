@@ -67,6 +67,12 @@ public class ProximityData extends SensorData
 		return maxRange;
 	}
 
+	protected void reset()
+	{
+		distance = 0;
+		maxRange = 0;
+	}
+
 	public int getSensorType()
 	{
 		return SensorUtils.SENSOR_TYPE_PROXIMITY;
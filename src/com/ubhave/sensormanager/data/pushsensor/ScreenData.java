@@ -54,6 +54,11 @@ public class ScreenData extends SensorData
 		return screenStatus == SCREEN_ON;
 	}
 
+	protected void reset()
+	{
+		screenStatus = 0;
+	}
+
 	public int getSensorType()
 	{
 		return SensorUtils.SENSOR_TYPE_SCREEN;
@@ -81,6 +81,14 @@ public class SmsData extends SensorData
 		return eventType;
 	}
 
+	protected void reset()
+	{
+		contentLength = 0;
+		noOfWords = 0;
+		address = null;
+		eventType = null;
+	}
+
 	public boolean wasReceived()
 	{
 		return eventType.equals(SMS_RECEIVED);
@@ -80,6 +80,10 @@ public class AdaptiveSensing implements SensorDataListener
 		sensorMap = new SparseArray<PullSensorDetails>();
 		sensorDataList = new LinkedList<SensorData>();
 		random = new Random();
+
+		EventProcessor eventProcessor = new EventProcessor();
+		eventProcessor.setDaemon(true);
+		eventProcessor.start();
 	}
 
 	public void registerSensor(ESSensorManagerInterface sensorManager, SensorInterface sensor,
@@ -129,6 +133,13 @@ public class AdaptiveSensing implements SensorDataListener
 	{
 		int sensorType = data.getSensorType();
 		PullSensorDetails sensorDetails = sensorMap.get(sensorType);
+		if (sensorDetails == null)
+		{
+			// sensor unregistered meanwhile
+			return;
+		}
+		// the config the sample was sensed with
+		sensorDetails.sensorConfig = data.getSensorConfig();
 		double probability = sensorDetails.probability;
 		SensorDataClassifier classifier = sensorDetails.classifier;
 
@@ -159,18 +170,18 @@ public class AdaptiveSensing implements SensorDataListener
 		// initialise to a default value
 		long senseWindowLengthMillis = 1000;
 
-		if (sensorDetails.sensorConfig.containsParameter(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS))
+		SensorConfig sensorConfig = sensorDetails.sensorConfig;
+		if (sensorConfig.contains(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS_KEY))
 		{
-			senseWindowLengthMillis = (Long) sensorDetails.sensorConfig
-					.getParameter(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS);
+			senseWindowLengthMillis = sensorConfig.getLong(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS_KEY, 0);
 		}
-		else if (sensorDetails.sensorConfig.containsParameter(SensorConfig.NUMBER_OF_SENSE_CYCLES)
-				&& sensorDetails.sensorConfig.containsParameter(SensorConfig.SENSE_WINDOW_LENGTH_PER_CYCLE_MILLIS))
+		else if (sensorConfig.contains(SensorConfig.NUMBER_OF_SENSE_CYCLES_KEY)
+				&& sensorConfig.contains(SensorConfig.SENSE_WINDOW_LENGTH_PER_CYCLE_MILLIS_KEY))
 		{
 			// if wifi or bluetooth sensor then the sense window length should
 			// be calculated as (number of cycles * cycle length)
-			long numCycles = (Long)sensorDetails.sensorConfig.getParameter(SensorConfig.NUMBER_OF_SENSE_CYCLES);
-			long cycleLengthMillis = (Long)sensorDetails.sensorConfig.getParameter(SensorConfig.SENSE_WINDOW_LENGTH_PER_CYCLE_MILLIS);
+			long numCycles = sensorConfig.getInt(SensorConfig.NUMBER_OF_SENSE_CYCLES_KEY, 0);
+			long cycleLengthMillis = sensorConfig.getLong(SensorConfig.SENSE_WINDOW_LENGTH_PER_CYCLE_MILLIS_KEY, 0);
 			senseWindowLengthMillis = numCycles * cycleLengthMillis;
 		}
 		else
@@ -202,7 +213,7 @@ public class AdaptiveSensing implements SensorDataListener
 	{
 		synchronized (sensorDataList)
 		{
-			sensorDataList.addLast(data);
+			sensorDataList.addLast(data.retain());
 			sensorDataList.notify();
 		}
 	}
@@ -219,15 +230,11 @@ public class AdaptiveSensing implements SensorDataListener
 					SensorData sensorData = null;
 					synchronized (sensorDataList)
 					{
-						sensorDataList.wait();
-						if (sensorDataList.size() == 0)
-						{
-							continue;
-						}
-						else
+						while (sensorDataList.size() == 0)
 						{
-							sensorData = sensorDataList.removeFirst();
+							sensorDataList.wait();
 						}
+						sensorData = sensorDataList.removeFirst();
 					}
 					if (sensorData == null)
 					{
@@ -235,7 +242,14 @@ public class AdaptiveSensing implements SensorDataListener
 					}
 					else
 					{
-						updateSamplingInterval(sensorData);
+						try
+						{
+							updateSamplingInterval(sensorData);
+						}
+						finally
+						{
+							sensorData.release();
+						}
 					}
 				}
 				catch (Exception exp)
@@ -10,6 +10,7 @@ import com.ubhave.sensormanager.process.pull.WifiProcessor;
 import com.ubhave.sensormanager.process.push.BatteryProcessor;
 import com.ubhave.sensormanager.process.push.ConnectionStateProcessor;
 import com.ubhave.sensormanager.process.push.PhoneStateProcessor;
+import com.ubhave.sensormanager.process.push.ProximityProcessor;
 import com.ubhave.sensormanager.process.push.SMSProcessor;
 import com.ubhave.sensormanager.process.push.ScreenProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -38,6 +39,8 @@ public abstract class AbstractProcessor
 			return new ConnectionStateProcessor(setRawData, setProcessedData);
 		case SensorUtils.SENSOR_TYPE_PHONE_STATE:
 			return new PhoneStateProcessor(setRawData, setProcessedData);
+		case SensorUtils.SENSOR_TYPE_PROXIMITY:
+			return new ProximityProcessor(setRawData, setProcessedData);
 		case SensorUtils.SENSOR_TYPE_SCREEN:
 			return new ScreenProcessor(setRawData, setProcessedData);
 		case SensorUtils.SENSOR_TYPE_SMS:
@@ -47,6 +50,11 @@ public abstract class AbstractProcessor
 		}
 	}
 	
+	/*
+	 * Sensors keep their processor until DATA_SET_RAW_VALUES or
+	 * DATA_EXTRACT_FEATURES change, so a processor may hold reusable state;
+	 * it must then be safe to call from the sensor's threads.
+	 */
 	protected final boolean setRawData, setProcessedData;
 	
 	public AbstractProcessor(final boolean rw, final boolean sp)
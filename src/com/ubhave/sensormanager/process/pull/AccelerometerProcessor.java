@@ -1,7 +1,5 @@
 package com.ubhave.sensormanager.process.pull;
 
-import java.util.ArrayList;
-
 import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pullsensor.AccelerometerData;
 import com.ubhave.sensormanager.process.AbstractProcessor;
@@ -14,15 +12,14 @@ public class AccelerometerProcessor extends AbstractProcessor
 		super(rw, sp);
 	}
 
-	public AccelerometerData process(long pullSenseStartTimestamp, ArrayList<float[]> sensorReadings,
-			ArrayList<Long> sensorReadingTimestamps, SensorConfig sensorConfig)
+	public AccelerometerData process(long pullSenseStartTimestamp, float[] xValues, float[] yValues,
+			float[] zValues, long[] timestamps, int length, SensorConfig sensorConfig)
 	{
 		AccelerometerData accelerometerData = new AccelerometerData(pullSenseStartTimestamp, sensorConfig);
 
 		if (setRawData)
 		{
-			accelerometerData.setSensorReadings(sensorReadings);
-			accelerometerData.setSensorReadingTimestamps(sensorReadingTimestamps);
+			accelerometerData.setSensorReadings(xValues, yValues, zValues, timestamps, length);
 		}
 
 		if (setProcessedData)
@@ -14,13 +14,29 @@ public class AudioProcessor extends AbstractProcessor
 
 	public MicrophoneData process(long pullSenseStartTimestamp, int[] maxAmpArray, long[] timestampArray,
 			SensorConfig sensorConfig)
+	{
+		return process(pullSenseStartTimestamp, maxAmpArray, timestampArray,
+				Math.min(maxAmpArray.length, timestampArray.length), sensorConfig);
+	}
+
+	/*
+	 * Only the first length entries of the arrays are samples. The arrays
+	 * may be reused by the sensor after this returns, so the raw data keeps
+	 * its own copy of just those entries.
+	 */
+	public MicrophoneData process(long pullSenseStartTimestamp, int[] maxAmpArray, long[] timestampArray,
+			int length, SensorConfig sensorConfig)
 	{
 		MicrophoneData micData = new MicrophoneData(pullSenseStartTimestamp, sensorConfig);
 
 		if (setRawData)
 		{
-			micData.setMaxAmplitudeArray(maxAmpArray);
-			micData.setTimestampArray(timestampArray);
+			int[] amplitudes = new int[length];
+			long[] timestamps = new long[length];
+			System.arraycopy(maxAmpArray, 0, amplitudes, 0, length);
+			System.arraycopy(timestampArray, 0, timestamps, 0, length);
+			micData.setMaxAmplitudeArray(amplitudes);
+			micData.setTimestampArray(timestamps);
 		}
 
 		if (setProcessedData)
@@ -16,8 +16,12 @@ public class BatteryProcessor extends AbstractProcessor
 
 	public BatteryData process(long recvTime, SensorConfig config, Intent dataIntent)
 	{
-		BatteryData data = new BatteryData(recvTime, config);
+		return process(new BatteryData(recvTime, config), dataIntent);
+	}
 
+	// fills in a sample, e.g. one taken from a SensorDataPool
+	public BatteryData process(BatteryData data, Intent dataIntent)
+	{
 		if (setRawData)
 		{
 			int level = dataIntent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
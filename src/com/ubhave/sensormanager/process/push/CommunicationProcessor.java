@@ -7,13 +7,19 @@ import com.ubhave.sensormanager.process.AbstractProcessor;
 
 public class CommunicationProcessor extends AbstractProcessor
 {
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	// processors are kept by their sensor, so the digest and the hex buffer
+	// are reused from one number to the next
+	private MessageDigest mDigest;
+	private char[] hexChars;
 
 	public CommunicationProcessor(boolean rw, boolean sp)
 	{
 		super(rw, sp);
 	}
 	
-	protected String hashPhoneNumber(String phoneNumber)
+	protected synchronized String hashPhoneNumber(String phoneNumber)
 	{
 		if ((phoneNumber == null) || (phoneNumber.length() == 0))
 		{
@@ -25,29 +31,30 @@ public class CommunicationProcessor extends AbstractProcessor
 		{
 			phoneNumber = phoneNumber.substring(phoneNumber.length() - 10, phoneNumber.length());
 		}
-		MessageDigest mDigest = null;
-		try
-		{
-			mDigest = MessageDigest.getInstance("SHA-256");
-		}
-		catch (NoSuchAlgorithmException e)
+		if (mDigest == null)
 		{
-			e.printStackTrace();
+			try
+			{
+				mDigest = MessageDigest.getInstance("SHA-256");
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				e.printStackTrace();
+			}
 		}
 		
 		mDigest.reset();
 		byte[] byteArray = mDigest.digest(phoneNumber.getBytes());
-		String hash = "";
+		if ((hexChars == null) || (hexChars.length != byteArray.length * 2))
+		{
+			hexChars = new char[byteArray.length * 2];
+		}
 		for (int i = 0; i < byteArray.length; i++)
 		{
-			String hexString = Integer.toHexString(0xFF & byteArray[i]);
-			if (hexString.length() == 1)
-			{
-				hexString = "0" + hexString;
-			}
-			hash += hexString.toUpperCase(); // TODO check this warning
+			hexChars[2 * i] = HEX_DIGITS[(byteArray[i] >> 4) & 0x0F];
+			hexChars[2 * i + 1] = HEX_DIGITS[byteArray[i] & 0x0F];
 		}
-		return hash;
+		return new String(hexChars);
 	}
 
 }
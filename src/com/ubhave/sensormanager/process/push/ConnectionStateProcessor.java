@@ -16,8 +16,12 @@ public class ConnectionStateProcessor extends AbstractProcessor
 
 	public ConnectionStateData process(long recvTime, SensorConfig config, NetworkInfo activeNetwork, WifiInfo wifiInfo)
 	{
-		ConnectionStateData data = new ConnectionStateData(recvTime, config);
+		return process(new ConnectionStateData(recvTime, config), activeNetwork, wifiInfo);
+	}
 
+	// fills in a sample, e.g. one taken from a SensorDataPool
+	public ConnectionStateData process(ConnectionStateData data, NetworkInfo activeNetwork, WifiInfo wifiInfo)
+	{
 		if (setRawData)
 		{
 			data.setNetworkType(activeNetwork);
@@ -13,8 +13,12 @@ public class PhoneStateProcessor extends CommunicationProcessor
 
 	public PhoneStateData process(long timestamp, SensorConfig config, int event, String details, String number)
 	{
-		PhoneStateData data = new PhoneStateData(timestamp, config);
+		return process(new PhoneStateData(timestamp, config), event, details, number);
+	}
 
+	// fills in a sample, e.g. one taken from a SensorDataPool
+	public PhoneStateData process(PhoneStateData data, int event, String details, String number)
+	{
 		if (setRawData)
 		{
 			data.setEventType(event);
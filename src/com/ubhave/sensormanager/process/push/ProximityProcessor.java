@@ -13,8 +13,12 @@ public class ProximityProcessor extends AbstractProcessor
 
 	public ProximityData process(long recvTime, SensorConfig config, float distance, float maxRange)
 	{
-		ProximityData data = new ProximityData(recvTime, config);
+		return process(new ProximityData(recvTime, config), distance, maxRange);
+	}
 
+	// fills in a sample, e.g. one taken from a SensorDataPool
+	public ProximityData process(ProximityData data, float distance, float maxRange)
+	{
 		if (setRawData)
 		{
 			data.setDistance(distance);
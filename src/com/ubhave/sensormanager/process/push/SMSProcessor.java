@@ -13,7 +13,12 @@ public class SMSProcessor extends CommunicationProcessor
 
 	public SmsData process(long timestamp, SensorConfig config, String content, String address, String event)
 	{
-		SmsData data = new SmsData(timestamp, config);
+		return process(new SmsData(timestamp, config), content, address, event);
+	}
+
+	// fills in a sample, e.g. one taken from a SensorDataPool
+	public SmsData process(SmsData data, String content, String address, String event)
+	{
 		if (super.setRawData)
 		{
 			data.setNumberOfWords(content.split(" ").length);
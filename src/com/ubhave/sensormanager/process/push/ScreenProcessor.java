@@ -14,7 +14,12 @@ public class ScreenProcessor extends AbstractProcessor
 	
 	public ScreenData process(long timestamp, SensorConfig config, int status)
 	{
-		ScreenData data = new ScreenData(timestamp, config);
+		return process(new ScreenData(timestamp, config), status);
+	}
+
+	// fills in a sample, e.g. one taken from a SensorDataPool
+	public ScreenData process(ScreenData data, int status)
+	{
 		data.setStatus(status);
 		return data;
 	}
@@ -0,0 +1,284 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.scheduler;
+
+import java.util.ArrayList;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/*
+ * Deadline service for the sensing scheduler. Pending deadlines hang off a
+ * circular array of buckets, one bucket per tick; adding or cancelling a
+ * deadline is a constant-time list operation on its bucket. A single thread
+ * sleeps until the next tick that has something due (or until a sooner
+ * deadline is added), so an idle wheel does not tick. Time is measured on
+ * the elapsed-realtime clock, so wall-clock changes do not move deadlines.
+ */
+
+public class HashedTimingWheel
+{
+	private static final String TAG = "HashedTimingWheel";
+
+	public static class Timeout
+	{
+		private final HashedTimingWheel wheel;
+		private final Runnable job;
+		private long targetTick;
+		private Timeout prev;
+		private Timeout next;
+		private int bucket = -1;
+		private boolean isExpired;
+		private boolean isCancelled;
+
+		private Timeout(HashedTimingWheel wheel, Runnable job)
+		{
+			this.wheel = wheel;
+			this.job = job;
+		}
+
+		// returns false if the deadline has already fired or been cancelled
+		public boolean cancel()
+		{
+			synchronized (wheel)
+			{
+				if (isExpired || isCancelled)
+				{
+					return false;
+				}
+				isCancelled = true;
+				wheel.unlink(this);
+				return true;
+			}
+		}
+
+		public boolean isExpired()
+		{
+			synchronized (wheel)
+			{
+				return isExpired;
+			}
+		}
+
+		public boolean isCancelled()
+		{
+			synchronized (wheel)
+			{
+				return isCancelled;
+			}
+		}
+	}
+
+	private final long tickMillis;
+	private final Timeout[] buckets;
+	private final int mask;
+	private final long startTime;
+
+	// the next tick to be processed, and the tick the thread is sleeping until
+	private long currentTick;
+	private long wakeTick;
+	private int pendingCount;
+
+	public HashedTimingWheel(String threadName, long tickMillis, int wheelSize)
+	{
+		int size = 1;
+		while (size < wheelSize)
+		{
+			size <<= 1;
+		}
+		this.tickMillis = tickMillis;
+		this.buckets = new Timeout[size];
+		this.mask = size - 1;
+		this.startTime = SystemClock.elapsedRealtime();
+		this.wakeTick = Long.MAX_VALUE;
+
+		Thread thread = new Thread(threadName)
+		{
+			public void run()
+			{
+				runWheel();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public Timeout schedule(Runnable job, long delayMillis)
+	{
+		Timeout timeout = new Timeout(this, job);
+		synchronized (this)
+		{
+			long deadline = SystemClock.elapsedRealtime() + Math.max(0, delayMillis) - startTime;
+			// round up so that a deadline never fires early
+			timeout.targetTick = Math.max(currentTick, (deadline + tickMillis - 1) / tickMillis);
+			link(timeout);
+			if (timeout.targetTick < wakeTick)
+			{
+				notify();
+			}
+		}
+		return timeout;
+	}
+
+	public synchronized int getPendingCount()
+	{
+		return pendingCount;
+	}
+
+	private void link(Timeout timeout)
+	{
+		int index = (int) (timeout.targetTick & mask);
+		timeout.bucket = index;
+		timeout.prev = null;
+		timeout.next = buckets[index];
+		if (buckets[index] != null)
+		{
+			buckets[index].prev = timeout;
+		}
+		buckets[index] = timeout;
+		pendingCount++;
+	}
+
+	private void unlink(Timeout timeout)
+	{
+		if (timeout.bucket < 0)
+		{
+			return;
+		}
+		if (timeout.prev != null)
+		{
+			timeout.prev.next = timeout.next;
+		}
+		else
+		{
+			buckets[timeout.bucket] = timeout.next;
+		}
+		if (timeout.next != null)
+		{
+			timeout.next.prev = timeout.prev;
+		}
+		timeout.prev = null;
+		timeout.next = null;
+		timeout.bucket = -1;
+		pendingCount--;
+	}
+
+	private void runWheel()
+	{
+		ArrayList<Timeout> expired = new ArrayList<Timeout>();
+		while (true)
+		{
+			synchronized (this)
+			{
+				try
+				{
+					long nowTick = (SystemClock.elapsedRealtime() - startTime) / tickMillis;
+					collectExpired(nowTick, expired);
+
+					wakeTick = findNextTick();
+					if (expired.isEmpty())
+					{
+						if (wakeTick == Long.MAX_VALUE)
+						{
+							wait();
+						}
+						else
+						{
+							long sleepMillis = startTime + (wakeTick * tickMillis) - SystemClock.elapsedRealtime();
+							if (sleepMillis > 0)
+							{
+								wait(sleepMillis);
+							}
+						}
+						wakeTick = Long.MAX_VALUE;
+					}
+				}
+				catch (InterruptedException exp)
+				{
+					// ignore
+				}
+			}
+
+			for (int i = 0; i < expired.size(); i++)
+			{
+				try
+				{
+					expired.get(i).job.run();
+				}
+				catch (RuntimeException exp)
+				{
+					Log.d(TAG, "deadline job failed: " + exp);
+					exp.printStackTrace();
+				}
+			}
+			expired.clear();
+		}
+	}
+
+	// removes every deadline due by nowTick; called with the wheel locked
+	private void collectExpired(long nowTick, ArrayList<Timeout> expired)
+	{
+		// ticks further back than one turn share buckets with later ones
+		long fromTick = Math.max(currentTick, nowTick - mask);
+		for (long tick = fromTick; tick <= nowTick; tick++)
+		{
+			Timeout timeout = buckets[(int) (tick & mask)];
+			while (timeout != null)
+			{
+				Timeout next = timeout.next;
+				if (timeout.targetTick <= nowTick)
+				{
+					unlink(timeout);
+					timeout.isExpired = true;
+					expired.add(timeout);
+				}
+				timeout = next;
+			}
+		}
+		currentTick = Math.max(currentTick, nowTick + 1);
+	}
+
+	// the first tick within one turn of the wheel that has a deadline due,
+	// or one turn ahead if none does; called with the wheel locked
+	private long findNextTick()
+	{
+		if (pendingCount == 0)
+		{
+			return Long.MAX_VALUE;
+		}
+
+		long lastTick = currentTick + mask;
+		for (long tick = currentTick; tick <= lastTick; tick++)
+		{
+			Timeout timeout = buckets[(int) (tick & mask)];
+			while (timeout != null)
+			{
+				if (timeout.targetTick <= tick)
+				{
+					return tick;
+				}
+				timeout = timeout.next;
+			}
+		}
+		return lastTick;
+	}
+}
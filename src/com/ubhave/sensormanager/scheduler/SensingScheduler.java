@@ -0,0 +1,257 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+
+package com.ubhave.sensormanager.scheduler;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.Build;
+import android.os.SystemClock;
+
+import com.ubhave.sensormanager.config.SensorManagerConstants;
+import com.ubhave.sensormanager.scheduler.HashedTimingWheel.Timeout;
+
+/*
+ * Shared scheduler for all sensor tasks. Deadlines (the next sense of a pull
+ * sensor, the end of a pause or of a sense window) are kept on a single
+ * timing wheel, and the work
+ * itself (blocking sense cycles, starting and stopping push sensors) is handed
+ * to a small worker pool, one thread per processor plus a few; jobs beyond
+ * that wait in its queue. Idle workers exit where the platform allows it
+ * (API 9 and later).
+ * Deadlines scheduled with scheduleAligned() may be moved onto a wake-up that
+ * is already planned, so that sensors due at about the same time run together.
+ */
+
+public class SensingScheduler
+{
+	private static SensingScheduler sensingScheduler;
+	private static final Object lock = new Object();
+
+	private final HashedTimingWheel timer;
+	private final ThreadPoolExecutor workers;
+
+	// planned wake-up times that aligned deadlines can join
+	private final TreeSet<Long> wakeSlots;
+
+	private final Object wakeStatisticsLock = new Object();
+	private final long createdAt;
+	private int runningJobs;
+	private long wakeCount;
+	private long awakeMillis;
+	private long awakeSince;
+
+	public static SensingScheduler getSensingScheduler()
+	{
+		if (sensingScheduler == null)
+		{
+			synchronized (lock)
+			{
+				if (sensingScheduler == null)
+				{
+					sensingScheduler = new SensingScheduler();
+				}
+			}
+		}
+		return sensingScheduler;
+	}
+
+	private SensingScheduler()
+	{
+		timer = new HashedTimingWheel("SensingTimer", SensorManagerConstants.TIMING_WHEEL_TICK_MILLIS,
+				SensorManagerConstants.TIMING_WHEEL_SIZE);
+		int workerCount = Runtime.getRuntime().availableProcessors()
+				+ SensorManagerConstants.SENSING_WORKER_EXTRA_THREADS;
+		workers = new ThreadPoolExecutor(workerCount, workerCount,
+				SensorManagerConstants.SENSING_WORKER_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("SensingWorker"));
+		if (Build.VERSION.SDK_INT >= 9)
+		{
+			workers.allowCoreThreadTimeOut(true);
+		}
+		wakeSlots = new TreeSet<Long>();
+		createdAt = SystemClock.elapsedRealtime();
+	}
+
+	public Timeout schedule(Runnable job, long delayMillis)
+	{
+		final Runnable trackedJob = track(job);
+		return timer.schedule(new Runnable()
+		{
+			public void run()
+			{
+				workers.execute(trackedJob);
+			}
+		}, delayMillis);
+	}
+
+	/*
+	 * For deadlines whose job only signals a waiting thread and returns at
+	 * once: it runs on the timer thread, so it cannot wait in the workers'
+	 * queue behind the very jobs it would release.
+	 */
+	public Timeout scheduleSignal(Runnable job, long delayMillis)
+	{
+		return timer.schedule(job, delayMillis);
+	}
+
+	/*
+	 * Schedules the job on the planned wake-up closest to delayMillis from now,
+	 * if there is one within toleranceMillis either side; otherwise plans a new
+	 * wake-up at delayMillis that later deadlines can join.
+	 */
+	public Timeout scheduleAligned(Runnable job, long delayMillis, long toleranceMillis)
+	{
+		long now = SystemClock.elapsedRealtime();
+		long target = now + Math.max(0, delayMillis);
+		long wakeTime = target;
+
+		synchronized (wakeSlots)
+		{
+			// forget wake-ups that have already happened
+			wakeSlots.headSet(now).clear();
+
+			long bestDistance = toleranceMillis + 1;
+			SortedSet<Long> later = wakeSlots.tailSet(target);
+			if (!later.isEmpty() && (later.first() - target < bestDistance))
+			{
+				wakeTime = later.first();
+				bestDistance = wakeTime - target;
+			}
+			SortedSet<Long> earlier = wakeSlots.headSet(target);
+			if (!earlier.isEmpty() && (target - earlier.last() < bestDistance))
+			{
+				wakeTime = earlier.last();
+				bestDistance = target - wakeTime;
+			}
+
+			if (bestDistance > toleranceMillis)
+			{
+				wakeTime = target;
+				wakeSlots.add(target);
+			}
+		}
+		return schedule(job, wakeTime - now);
+	}
+
+	public void execute(Runnable job)
+	{
+		workers.execute(track(job));
+	}
+
+	private Runnable track(final Runnable job)
+	{
+		return new Runnable()
+		{
+			public void run()
+			{
+				onJobStarted();
+				try
+				{
+					job.run();
+				}
+				finally
+				{
+					onJobFinished();
+				}
+			}
+		};
+	}
+
+	private void onJobStarted()
+	{
+		synchronized (wakeStatisticsLock)
+		{
+			if (runningJobs == 0)
+			{
+				wakeCount++;
+				awakeSince = SystemClock.elapsedRealtime();
+			}
+			runningJobs++;
+		}
+	}
+
+	private void onJobFinished()
+	{
+		synchronized (wakeStatisticsLock)
+		{
+			runningJobs--;
+			if (runningJobs == 0)
+			{
+				awakeMillis += SystemClock.elapsedRealtime() - awakeSince;
+			}
+		}
+	}
+
+	public WakeStatistics getWakeStatistics()
+	{
+		synchronized (wakeStatisticsLock)
+		{
+			long now = SystemClock.elapsedRealtime();
+			long awake = awakeMillis;
+			if (runningJobs > 0)
+			{
+				awake += now - awakeSince;
+			}
+			return new WakeStatistics(wakeCount, awake, now - createdAt);
+		}
+	}
+
+	public int getPendingDeadlineCount()
+	{
+		return timer.getPendingCount();
+	}
+
+	public int getActiveWorkerCount()
+	{
+		return workers.getActiveCount();
+	}
+
+	public int getWorkerPoolSize()
+	{
+		return workers.getPoolSize();
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory
+	{
+		private final String prefix;
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		public NamedThreadFactory(String prefix)
+		{
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
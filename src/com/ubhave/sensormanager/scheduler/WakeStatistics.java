@@ -0,0 +1,79 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.scheduler;
+
+/*
+ * Snapshot of how often the sensing scheduler woke up to run work and for how
+ * long it stayed awake. A wake period starts when a job starts with no other
+ * job running and ends when the last running job finishes.
+ */
+
+public class WakeStatistics
+{
+	private static final long ONE_HOUR_MILLIS = 60 * 60 * 1000;
+
+	private final long wakeCount;
+	private final long awakeMillis;
+	private final long elapsedMillis;
+
+	public WakeStatistics(long wakeCount, long awakeMillis, long elapsedMillis)
+	{
+		this.wakeCount = wakeCount;
+		this.awakeMillis = awakeMillis;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getWakeCount()
+	{
+		return wakeCount;
+	}
+
+	public long getAwakeMillis()
+	{
+		return awakeMillis;
+	}
+
+	// time since the scheduler was created
+	public long getElapsedMillis()
+	{
+		return elapsedMillis;
+	}
+
+	public double getWakeCountPerHour()
+	{
+		return perHour(wakeCount);
+	}
+
+	public double getAwakeMillisPerHour()
+	{
+		return perHour(awakeMillis);
+	}
+
+	private double perHour(long value)
+	{
+		if (elapsedMillis <= 0)
+		{
+			return 0;
+		}
+		return ((double) value) * ONE_HOUR_MILLIS / elapsedMillis;
+	}
+}
@@ -26,8 +26,14 @@ import android.content.Context;
 import android.content.pm.PackageManager;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.config.BoolKey;
+import com.ubhave.sensormanager.config.ConfigKey;
+import com.ubhave.sensormanager.config.IntKey;
+import com.ubhave.sensormanager.config.LongKey;
 import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.config.SensorManagerConstants;
+import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.data.SensorDataHistory;
 import com.ubhave.sensormanager.process.AbstractProcessor;
 
 public abstract class AbstractSensor implements SensorInterface
@@ -38,11 +44,29 @@ public abstract class AbstractSensor implements SensorInterface
 	protected final Object senseCompleteNotify;
 	protected final SensorConfig sensorConfig;
 
+	// created on first use, dropped when the data preferences change
+	private volatile AbstractProcessor processor;
+
+	private final SensorDataHistory.Writer history;
+
 	public AbstractSensor(Context context)
 	{
 		applicationContext = context;
 		senseCompleteNotify = new Object();
 		sensorConfig = SensorUtils.getDefaultSensorConfig(getSensorType());
+		history = new SensorDataHistory.Writer(sensorConfig.getInt(SensorConfig.HISTORY_SIZE_KEY, 1),
+				sensorConfig.getLong(SensorConfig.HISTORY_MAX_AGE_MILLIS_KEY, 0));
+	}
+
+	public SensorDataHistory getHistory()
+	{
+		return history.getHistory();
+	}
+
+	// called by the sensor for each sample it produces
+	protected void addToHistory(SensorData sensorData)
+	{
+		history.add(sensorData);
 	}
 
 	protected static boolean permissionGranted(Context context, String permission)
@@ -80,7 +104,29 @@ public abstract class AbstractSensor implements SensorInterface
 			}
 		}
 
-		sensorConfig.setParameter(configKey, configValue);
+		try
+		{
+			sensorConfig.setParameter(configKey, configValue);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new ESException(ESException.INVALID_SENSOR_CONFIG, e.getMessage());
+		}
+
+		if (configKey.equals(SensorConfig.DATA_SET_RAW_VALUES) || configKey.equals(SensorConfig.DATA_EXTRACT_FEATURES))
+		{
+			// same lock as createProcessor(), so one built from the old flags is not kept
+			synchronized (this)
+			{
+				processor = null;
+			}
+		}
+
+		if (configKey.equals(SensorConfig.HISTORY_SIZE) || configKey.equals(SensorConfig.HISTORY_MAX_AGE_MILLIS))
+		{
+			history.setLimits(sensorConfig.getInt(SensorConfig.HISTORY_SIZE_KEY, 1),
+					sensorConfig.getLong(SensorConfig.HISTORY_MAX_AGE_MILLIS_KEY, 0));
+		}
 	}
 
 	public Object getSensorConfig(String configKey) throws ESException
@@ -95,26 +141,60 @@ public abstract class AbstractSensor implements SensorInterface
 		}
 	}
 	
-	private boolean getRawData()
+	public long getSensorConfig(LongKey configKey) throws ESException
+	{
+		checkSensorConfig(configKey);
+		return sensorConfig.getLong(configKey, 0);
+	}
+
+	public int getSensorConfig(IntKey configKey) throws ESException
+	{
+		checkSensorConfig(configKey);
+		return sensorConfig.getInt(configKey, 0);
+	}
+
+	public boolean getSensorConfig(BoolKey configKey) throws ESException
+	{
+		checkSensorConfig(configKey);
+		return sensorConfig.getBoolean(configKey, false);
+	}
+
+	private void checkSensorConfig(ConfigKey configKey) throws ESException
 	{
-		if (sensorConfig.containsParameter(SensorConfig.DATA_SET_RAW_VALUES))
+		if (!sensorConfig.contains(configKey))
 		{
-			return (Boolean) sensorConfig.getParameter(SensorConfig.DATA_SET_RAW_VALUES);
+			throw new ESException(ESException.INVALID_SENSOR_CONFIG, "Invalid sensor config, key: " + configKey);
 		}
-		return SensorManagerConstants.GET_RAW_DATA;
+	}
+	
+	private boolean getRawData()
+	{
+		return sensorConfig.getBoolean(SensorConfig.DATA_SET_RAW_VALUES_KEY, SensorManagerConstants.GET_RAW_DATA);
 	}
 	
 	private boolean getProcessedData()
 	{
-		if (sensorConfig.containsParameter(SensorConfig.DATA_EXTRACT_FEATURES))
-		{
-			return (Boolean) sensorConfig.getParameter(SensorConfig.DATA_EXTRACT_FEATURES);
-		}
-		return SensorManagerConstants.GET_PROCESSED_DATA;
+		return sensorConfig.getBoolean(SensorConfig.DATA_EXTRACT_FEATURES_KEY,
+				SensorManagerConstants.GET_PROCESSED_DATA);
 	}
 	
 	protected AbstractProcessor getProcessor()
 	{
+		AbstractProcessor cached = processor;
+		if (cached != null)
+		{
+			return cached;
+		}
+		return createProcessor();
+	}
+
+	private synchronized AbstractProcessor createProcessor()
+	{
+		if (processor != null)
+		{
+			return processor;
+		}
+
 		try
 		{
 			boolean rawData = getRawData();
@@ -123,7 +203,8 @@ public abstract class AbstractSensor implements SensorInterface
 			{
 				throw new ESException(ESException.INVALID_STATE, "No data requested from processor");
 			}
-			return AbstractProcessor.getProcessor(getSensorType(), rawData, processedData);
+			processor = AbstractProcessor.getProcessor(getSensorType(), rawData, processedData);
+			return processor;
 		}
 		catch (ESException e)
 		{
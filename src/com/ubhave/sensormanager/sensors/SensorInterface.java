@@ -23,6 +23,9 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 package com.ubhave.sensormanager.sensors;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.config.BoolKey;
+import com.ubhave.sensormanager.config.IntKey;
+import com.ubhave.sensormanager.config.LongKey;
 
 public interface SensorInterface
 {
@@ -33,4 +36,10 @@ public interface SensorInterface
 	public void setSensorConfig(String configKey, Object configValue) throws ESException;
 	
 	public Object getSensorConfig(String configKey) throws ESException;
+
+	public long getSensorConfig(LongKey configKey) throws ESException;
+
+	public int getSensorConfig(IntKey configKey) throws ESException;
+
+	public boolean getSensorConfig(BoolKey configKey) throws ESException;
 }
\ No newline at end of file
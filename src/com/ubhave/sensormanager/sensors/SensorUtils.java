@@ -125,7 +125,7 @@ public class SensorUtils
 		return sensors;
 	}
 
-	private static SensorInterface getSensor(int id, Context context) throws ESException
+	public static SensorInterface getSensor(int id, Context context) throws ESException
 	{
 		switch (id)
 		{
@@ -154,7 +154,7 @@ public class SensorUtils
 		case SENSOR_TYPE_APPLICATION:
 			return ApplicationSensor.getApplicationSensor(context);
 		default:
-			throw new ESException(ESException.UNKNOWN_SENSOR_TYPE, "Unknown sensor id");
+			throw new ESException(ESException.UNKNOWN_SENSOR_TYPE, "Unknown sensor id: " + id);
 		}
 	}
 
@@ -199,6 +199,9 @@ public class SensorUtils
 		}
 
 		sensorConfig.setParameter(SensorConfig.ADAPTIVE_SENSING_ENABLED, false);
+		sensorConfig.setParameter(SensorConfig.POOL_SENSOR_DATA, false);
+		sensorConfig.setParameter(SensorConfig.HISTORY_SIZE, SensorManagerConstants.SENSOR_HISTORY_SIZE);
+		sensorConfig.setParameter(SensorConfig.HISTORY_MAX_AGE_MILLIS, SensorManagerConstants.SENSOR_HISTORY_MAX_AGE_MILLIS);
 		return sensorConfig;
 	}
 
@@ -29,13 +29,16 @@ import com.ubhave.sensormanager.ESException;
 import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.SensorData;
 import com.ubhave.sensormanager.dutycyling.SleepWindowListener;
+import com.ubhave.sensormanager.scheduler.HashedTimingWheel.Timeout;
+import com.ubhave.sensormanager.scheduler.SensingScheduler;
 import com.ubhave.sensormanager.sensors.AbstractSensor;
 
 public abstract class AbstractPullSensor extends AbstractSensor implements PullSensor, SleepWindowListener
 {
 	protected long pullSenseStartTimestamp;
 
-	protected SensorData prevSensorData;
+	private int senseWindowCount;
+	private volatile long minimumSenseWindowMillis;
 
 	public AbstractPullSensor(Context context)
 	{
@@ -48,7 +51,19 @@ public abstract class AbstractPullSensor extends AbstractSensor implements PullS
 
 	public void onSleepWindowLengthChanged(long sleepWindowLengthMillis)
 	{
-		sensorConfig.setParameter(SensorConfig.POST_SENSE_SLEEP_LENGTH_MILLIS, sleepWindowLengthMillis);
+		sensorConfig.set(SensorConfig.POST_SENSE_SLEEP_LENGTH_MILLIS_KEY, sleepWindowLengthMillis);
+	}
+
+	public void setMinimumSenseWindow(long senseWindowMillis)
+	{
+		minimumSenseWindowMillis = senseWindowMillis;
+	}
+
+	// the configured window, stretched to what the listeners need
+	protected long getSenseWindowLengthMillis()
+	{
+		return Math.max(minimumSenseWindowMillis,
+				sensorConfig.getLong(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS_KEY, 0));
 	}
 
 	public SensorData sense() throws ESException
@@ -74,17 +89,33 @@ public abstract class AbstractPullSensor extends AbstractSensor implements PullS
 			{
 				try
 				{
-					if (sensorConfig.containsParameter(SensorConfig.NUMBER_OF_SENSE_CYCLES))
+					if (sensorConfig.contains(SensorConfig.NUMBER_OF_SENSE_CYCLES_KEY))
 					{
 						while (isSensing)
 						{
 							senseCompleteNotify.wait(500);
 						}
 					}
-					else if (sensorConfig.containsParameter(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS))
+					else if (sensorConfig.contains(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS_KEY))
 					{
-						long samplingWindowSize = (Long) sensorConfig.getParameter(SensorConfig.SENSE_WINDOW_LENGTH_MILLIS);
-						senseCompleteNotify.wait(samplingWindowSize);
+						// the end of the window is a deadline on the sensing
+						// scheduler, which ends the sense unless the sensor
+						// has already done so; it must not need a worker, as
+						// this sense may be holding the last free one
+						long samplingWindowSize = getSenseWindowLengthMillis();
+						final int windowId = ++senseWindowCount;
+						Timeout windowEnd = SensingScheduler.getSensingScheduler().scheduleSignal(new Runnable()
+						{
+							public void run()
+							{
+								endSenseWindow(windowId);
+							}
+						}, samplingWindowSize);
+						while (isSensing)
+						{
+							senseCompleteNotify.wait();
+						}
+						windowEnd.cancel();
 					}
 					else
 					{
@@ -106,8 +137,7 @@ public abstract class AbstractPullSensor extends AbstractSensor implements PullS
 			processSensorData();
 
 			sensorData = getMostRecentRawData();
-			sensorData.setPrevSensorData(prevSensorData);
-			prevSensorData = sensorData;
+			addToHistory(sensorData);
 		}
 		else
 		{
@@ -118,6 +148,19 @@ public abstract class AbstractPullSensor extends AbstractSensor implements PullS
 		return sensorData;
 	}
 
+	private void endSenseWindow(int windowId)
+	{
+		synchronized (senseCompleteNotify)
+		{
+			// a late deadline must not end a later sense
+			if (windowId == senseWindowCount)
+			{
+				senseCompleteNotify.notify();
+				isSensing = false;
+			}
+		}
+	}
+
 	protected void notifySenseCyclesComplete()
 	{
 		synchronized (senseCompleteNotify)
@@ -22,8 +22,6 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager.sensors.pull;
 
-import java.util.ArrayList;
-
 import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
@@ -32,6 +30,7 @@ import android.hardware.SensorManager;
 
 import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pullsensor.AccelerometerData;
+import com.ubhave.sensormanager.data.pullsensor.AccelerometerRing;
 import com.ubhave.sensormanager.process.pull.AccelerometerProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
 
@@ -43,8 +42,12 @@ public class AccelerometerSensor extends AbstractPullSensor
 	private SensorEventListener listener; // accelerometer data listener
 	private SensorManager sensorManager; // Controls the hardware sensor
 
-	private ArrayList<float[]> sensorReadings;
-	private ArrayList<Long> sensorReadingTimestamps;
+	// readings of the current sense window, written by the sensor thread
+	private static final int MIN_RING_CAPACITY = 64;
+	// devices often deliver faster than the nominal rate
+	private static final int RING_HEADROOM = 2;
+	private final AccelerometerRing ring;
+	private volatile boolean isCapturing;
 
 	private static AccelerometerSensor accelerometerSensor;
 	private static Object lock = new Object();
@@ -69,6 +72,7 @@ public class AccelerometerSensor extends AbstractPullSensor
 	private AccelerometerSensor(Context context)
 	{
 		super(context);
+		ring = new AccelerometerRing(MIN_RING_CAPACITY);
 		sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
 		listener = new SensorEventListener()
 		{
@@ -88,23 +92,10 @@ public class AccelerometerSensor extends AbstractPullSensor
 			{
 				try
 				{
-					if (isSensing)
+					if (isCapturing)
 					{
-						synchronized (sensorReadings)
-						{
-							if (isSensing)
-							{
-								float[] data = new float[3];
-
-								for (int i = 0; i < 3; i++)
-								{
-									data[i] = event.values[i];
-								}
-
-								sensorReadings.add(data);
-								sensorReadingTimestamps.add(System.currentTimeMillis());
-							}
-						}
+						ring.write(event.values[0], event.values[1], event.values[2],
+								System.currentTimeMillis());
 					}
 				}
 				catch (Exception e)
@@ -130,26 +121,56 @@ public class AccelerometerSensor extends AbstractPullSensor
 		return accelerometerData;
 	}
 	
-	protected void processSensorData()
+	// expected number of readings in one window, with headroom
+	private int getRequiredCapacity(int sensorDelay)
 	{
-		synchronized (sensorReadings)
+		long periodMillis;
+		switch (sensorDelay)
 		{
-			AccelerometerProcessor processor = (AccelerometerProcessor)getProcessor();
-			accelerometerData = processor.process(pullSenseStartTimestamp, sensorReadings, sensorReadingTimestamps, sensorConfig.clone());
+		case SensorManager.SENSOR_DELAY_FASTEST:
+			periodMillis = 5;
+			break;
+		case SensorManager.SENSOR_DELAY_GAME:
+			periodMillis = 20;
+			break;
+		case SensorManager.SENSOR_DELAY_UI:
+			periodMillis = 60;
+			break;
+		case SensorManager.SENSOR_DELAY_NORMAL:
+			periodMillis = 200;
+			break;
+		default:
+			// any other value is a period in microseconds
+			periodMillis = Math.max(1, sensorDelay / 1000);
+			break;
 		}
+		long readings = (getSenseWindowLengthMillis() / periodMillis) * RING_HEADROOM;
+		return (int) Math.max(MIN_RING_CAPACITY, Math.min(readings, Integer.MAX_VALUE / 2));
 	}
 
-	protected boolean startSensing()
+	protected void processSensorData()
 	{
-		sensorReadings = new ArrayList<float[]>();
-		sensorReadingTimestamps = new ArrayList<Long>();
+		// the window is over and the listener unregistered, so the ring
+		// is no longer written to
+		isCapturing = false;
+		int length = ring.size();
+		float[] x = new float[length];
+		float[] y = new float[length];
+		float[] z = new float[length];
+		long[] t = new long[length];
+		ring.drain(x, y, z, t);
+
+		AccelerometerProcessor processor = (AccelerometerProcessor)getProcessor();
+		accelerometerData = processor.process(pullSenseStartTimestamp, x, y, z, t, length, sensorConfig.getSnapshot());
+	}
 
-		int sensorDelay = SensorManager.SENSOR_DELAY_GAME;
+	protected boolean startSensing()
+	{
+		int sensorDelay = sensorConfig.getInt(SensorConfig.ACCELEROMETER_SAMPLING_DELAY_KEY,
+				SensorManager.SENSOR_DELAY_GAME);
 
-		if (sensorConfig.containsParameter(SensorConfig.ACCELEROMETER_SAMPLING_DELAY))
-		{
-			sensorDelay = (Integer) sensorConfig.getParameter(SensorConfig.ACCELEROMETER_SAMPLING_DELAY);
-		}
+		ring.reset(getRequiredCapacity(sensorDelay));
+		isCapturing = true;
 
 		boolean registrationSuccess = sensorManager.registerListener(listener,
 				sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER), sensorDelay);
@@ -159,6 +180,7 @@ public class AccelerometerSensor extends AbstractPullSensor
 	protected void stopSensing()
 	{
 		sensorManager.unregisterListener(listener);
+		isCapturing = false;
 	}
 
 }
@@ -90,7 +90,7 @@ public class ApplicationSensor extends AbstractPullSensor
 	protected void processSensorData()
 	{
 		ApplicationProcessor processor = (ApplicationProcessor) getProcessor();
-		applicationData = processor.process(pullSenseStartTimestamp, runningApplications, sensorConfig.clone());
+		applicationData = processor.process(pullSenseStartTimestamp, runningApplications, sensorConfig.getSnapshot());
 		
 	}
 
@@ -151,7 +151,7 @@ public class BluetoothSensor extends AbstractPullSensor
 	protected void processSensorData()
 	{
 		BluetoothProcessor processor = (BluetoothProcessor) getProcessor();
-		bluetoothData = processor.process(cyclesRemaining, btDevices, sensorConfig.clone());
+		bluetoothData = processor.process(cyclesRemaining, btDevices, sensorConfig.getSnapshot());
 	}
 
 	protected boolean startSensing()
@@ -173,7 +173,7 @@ public class BluetoothSensor extends AbstractPullSensor
 				}
 			}
 		}
-		cyclesRemaining = (Integer) sensorConfig.getParameter(SensorConfig.NUMBER_OF_SENSE_CYCLES);
+		cyclesRemaining = sensorConfig.getInt(SensorConfig.NUMBER_OF_SENSE_CYCLES_KEY, 1);
 		bluetooth.startDiscovery();
 		return true;
 	}
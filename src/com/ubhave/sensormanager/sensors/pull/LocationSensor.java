@@ -116,9 +116,10 @@ public class LocationSensor extends AbstractPullSensor
 	{
 		lastLocation = null;
 
-		String accuracyConfig = (String) sensorConfig.getParameter(SensorConfig.LOCATION_ACCURACY);
+		String accuracyConfig = sensorConfig.getEnum(SensorConfig.LOCATION_ACCURACY_KEY,
+				SensorConfig.LOCATION_ACCURACY_COARSE);
 
-		if ((accuracyConfig != null) && (accuracyConfig.equals(SensorConfig.LOCATION_ACCURACY_FINE)))
+		if (accuracyConfig.equals(SensorConfig.LOCATION_ACCURACY_FINE))
 		{
 			locationManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER, 5000, 0, locListener,
 					Looper.getMainLooper());
@@ -146,6 +147,6 @@ public class LocationSensor extends AbstractPullSensor
 	protected void processSensorData()
 	{
 		LocationProcessor processor = (LocationProcessor)getProcessor();
-		locationData = processor.process(pullSenseStartTimestamp, lastLocation, sensorConfig.clone());
+		locationData = processor.process(pullSenseStartTimestamp, lastLocation, sensorConfig.getSnapshot());
 	}
 }
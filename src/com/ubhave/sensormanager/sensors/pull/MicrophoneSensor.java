@@ -24,7 +24,6 @@ package com.ubhave.sensormanager.sensors.pull;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 
 import android.content.Context;
 import android.media.MediaRecorder;
@@ -42,8 +41,12 @@ public class MicrophoneSensor extends AbstractPullSensor
 	private MediaRecorder recorder;
 	private String fileName;
 
-	private ArrayList<Integer> maxAmplitudeList;
-	private ArrayList<Long> timestampList;
+	// amplitude samples of the current window; the buffers are kept and
+	// grown by doubling across windows, sampleCount says how much is used
+	private static final long AMPLITUDE_SAMPLING_MILLIS = 50;
+	private int[] maxAmplitudes = new int[64];
+	private long[] timestamps = new long[64];
+	private int sampleCount;
 
 	private static MicrophoneSensor microphoneSensor;
 	private static Object lock = new Object();
@@ -99,10 +102,11 @@ public class MicrophoneSensor extends AbstractPullSensor
 			recorder.setAudioEncoder(MediaRecorder.AudioEncoder.AMR_NB);
 			recorder.setOutputFile(fileName);
 
-			// for amplitude
-			maxAmplitudeList = new ArrayList<Integer>();
-			// for timestamp
-			timestampList = new ArrayList<Long>();
+			synchronized (recorder)
+			{
+				ensureCapacity((int) (getSenseWindowLengthMillis() / AMPLITUDE_SAMPLING_MILLIS) + 1);
+				sampleCount = 0;
+			}
 
 			recorder.prepare();
 			recorder.start();
@@ -124,11 +128,16 @@ public class MicrophoneSensor extends AbstractPullSensor
 						{
 							if (!recorderStopped)
 							{
-								maxAmplitudeList.add(recorder.getMaxAmplitude());
-								timestampList.add(System.currentTimeMillis());
+								if (sampleCount == maxAmplitudes.length)
+								{
+									ensureCapacity(sampleCount * 2);
+								}
+								maxAmplitudes[sampleCount] = recorder.getMaxAmplitude();
+								timestamps[sampleCount] = System.currentTimeMillis();
+								sampleCount++;
 							}
 						}
-						MicrophoneSensor.sleep(50);
+						MicrophoneSensor.sleep(AMPLITUDE_SAMPLING_MILLIS);
 					}
 					
 				}
@@ -143,6 +152,19 @@ public class MicrophoneSensor extends AbstractPullSensor
 		return true;
 	}
 
+	private void ensureCapacity(int capacity)
+	{
+		if (maxAmplitudes.length < capacity)
+		{
+			int[] amplitudes = new int[capacity];
+			long[] times = new long[capacity];
+			System.arraycopy(maxAmplitudes, 0, amplitudes, 0, sampleCount);
+			System.arraycopy(timestamps, 0, times, 0, sampleCount);
+			maxAmplitudes = amplitudes;
+			timestamps = times;
+		}
+	}
+
 	private static void sleep(long millis)
 	{
 		try
@@ -178,16 +200,12 @@ public class MicrophoneSensor extends AbstractPullSensor
 	
 	protected void processSensorData()
 	{
-		int[] maxAmpArray = new int[maxAmplitudeList.size()];
-		long[] timestampArray = new long[timestampList.size()];
-		for (int i = 0; (i < maxAmplitudeList.size() && i < timestampList.size()); i++)
+		AudioProcessor processor = (AudioProcessor)getProcessor();
+		synchronized (recorder)
 		{
-			maxAmpArray[i] = maxAmplitudeList.get(i);
-			timestampArray[i] = timestampList.get(i);
+			micData = processor.process(pullSenseStartTimestamp, maxAmplitudes, timestamps, sampleCount,
+					sensorConfig.getSnapshot());
 		}
-		
-		AudioProcessor processor = (AudioProcessor)getProcessor();
-		micData = processor.process(pullSenseStartTimestamp, maxAmpArray, timestampArray, sensorConfig.clone());
 	}
 
 }
@@ -31,4 +31,9 @@ public interface PullSensor extends SensorInterface
 	// performs one cycle of sensing, and returns the sensed data
 	// window size, sampling cycles are defined in the sensorconfig
 	public SensorData sense() throws ESException;
+
+	// senses for at least this long (if the sensor senses for a window
+	// rather than a number of cycles), even if the configured window is
+	// shorter; 0 for the configured window
+	public void setMinimumSenseWindow(long senseWindowMillis);
 }
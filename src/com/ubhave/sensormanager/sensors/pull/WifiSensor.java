@@ -123,7 +123,7 @@ public class WifiSensor extends AbstractPullSensor
 	protected void processSensorData()
 	{
 		WifiProcessor processor = (WifiProcessor)getProcessor();
-		wifiData = processor.process(cyclesRemaining, wifiScanResults, sensorConfig.clone());
+		wifiData = processor.process(cyclesRemaining, wifiScanResults, sensorConfig.getSnapshot());
 	}
 
 	protected boolean startSensing()
@@ -132,7 +132,7 @@ public class WifiSensor extends AbstractPullSensor
 		if (wifiManager.isWifiEnabled())
 		{
 			wifiScanResults = new ArrayList<WifiScanResult>();
-			cyclesRemaining = (Integer) sensorConfig.getParameter(SensorConfig.NUMBER_OF_SENSE_CYCLES);
+			cyclesRemaining = sensorConfig.getInt(SensorConfig.NUMBER_OF_SENSE_CYCLES_KEY, 1);
 			applicationContext.registerReceiver(wifiReceiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
 			wifiManager.startScan();
 			return true;
@@ -30,7 +30,10 @@ import android.util.Log;
 
 import com.ubhave.sensormanager.ESException;
 import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.config.SensorConfig;
+import com.ubhave.sensormanager.config.SensorManagerConstants;
 import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.data.SensorDataPool;
 import com.ubhave.sensormanager.sensors.AbstractSensor;
 
 public abstract class AbstractPushSensor extends AbstractSensor implements PushSensor
@@ -39,6 +42,16 @@ public abstract class AbstractPushSensor extends AbstractSensor implements PushS
 	protected SensorDataListener sensorDataListener;
 	protected BroadcastReceiver broadcastReceiver;
 
+	// used when POOL_SENSOR_DATA is set, see newSensorData()
+	private final SensorDataPool<SensorData> dataPool = new SensorDataPool<SensorData>(
+			SensorManagerConstants.SENSOR_DATA_POOL_SIZE)
+	{
+		protected SensorData create(long sensorTimestamp, SensorConfig config)
+		{
+			return createSensorData(sensorTimestamp, config);
+		}
+	};
+
 	protected abstract void onBroadcastReceived(Context context, Intent intent);
 
 	protected abstract IntentFilter[] getIntentFilters();
@@ -107,13 +120,37 @@ public abstract class AbstractPushSensor extends AbstractSensor implements PushS
 		Log.d(getLogTag(), "Sensing stopped.");
 	}
 
+	// whether samples are taken from the sensor's SensorDataPool
+	protected boolean isDataPooled()
+	{
+		return sensorConfig.getBoolean(SensorConfig.POOL_SENSOR_DATA_KEY, false);
+	}
+
+	// an empty sample of this sensor's type, filled in by its processor
+	protected abstract SensorData createSensorData(long sensorTimestamp, SensorConfig config);
+
+	// a new sample for the current config, from the pool if pooling is on
+	protected SensorData newSensorData()
+	{
+		long now = System.currentTimeMillis();
+		if (isDataPooled())
+		{
+			return dataPool.acquire(now, sensorConfig.getSnapshot());
+		}
+		return createSensorData(now, sensorConfig.getSnapshot());
+	}
+
 	protected void onDataSensed(SensorData sensorData)
 	{
 		Log.d(getLogTag(), sensorData.toString());
+		addToHistory(sensorData);
 		if (sensorDataListener != null)
 		{
 			sensorDataListener.onDataSensed(sensorData);
 		}
+		// drops the sensor's reference to a pooled sample; anything that
+		// kept it has retained it
+		sensorData.release();
 	}
 
 }
@@ -27,6 +27,7 @@ import android.content.Intent;
 import android.content.IntentFilter;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pushsensor.BatteryData;
 import com.ubhave.sensormanager.process.push.BatteryProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -75,10 +76,16 @@ public class BatterySensor extends AbstractPushSensor
 	protected void onBroadcastReceived(Context context, Intent dataIntent)
 	{
         BatteryProcessor processor = (BatteryProcessor) getProcessor();
-        BatteryData batteryData = processor.process(System.currentTimeMillis(), sensorConfig.clone(), dataIntent);
+        BatteryData batteryData = (BatteryData) newSensorData();
+        processor.process(batteryData, dataIntent);
         onDataSensed(batteryData);
 	}
 
+	protected BatteryData createSensorData(long sensorTimestamp, SensorConfig config)
+	{
+		return new BatteryData(sensorTimestamp, config);
+	}
+
 	protected IntentFilter[] getIntentFilters()
 	{
 		IntentFilter[] filters = new IntentFilter[1];
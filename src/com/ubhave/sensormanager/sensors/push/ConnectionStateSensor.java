@@ -32,6 +32,7 @@ import android.net.wifi.WifiManager;
 import android.util.Log;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pushsensor.ConnectionStateData;
 import com.ubhave.sensormanager.process.push.ConnectionStateProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -79,7 +80,8 @@ public class ConnectionStateSensor extends AbstractPushSensor
 			WifiInfo wifiInfo = wifiMgr.getConnectionInfo();
 			
 			ConnectionStateProcessor processor = (ConnectionStateProcessor) getProcessor();
-			ConnectionStateData data = processor.process(System.currentTimeMillis(), sensorConfig.clone(), activeNetwork, wifiInfo);
+			ConnectionStateData data = (ConnectionStateData) newSensorData();
+			processor.process(data, activeNetwork, wifiInfo);
 			onDataSensed(data);
 		}
 		else
@@ -88,6 +90,11 @@ public class ConnectionStateSensor extends AbstractPushSensor
 		}
 	}
 
+	protected ConnectionStateData createSensorData(long sensorTimestamp, SensorConfig config)
+	{
+		return new ConnectionStateData(sensorTimestamp, config);
+	}
+
 	protected IntentFilter[] getIntentFilters()
 	{
 		IntentFilter[] filters = new IntentFilter[1];
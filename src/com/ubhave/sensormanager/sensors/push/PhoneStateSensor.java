@@ -31,6 +31,7 @@ import android.telephony.ServiceState;
 import android.telephony.TelephonyManager;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pushsensor.PhoneStateData;
 import com.ubhave.sensormanager.process.push.PhoneStateProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -135,12 +136,18 @@ public class PhoneStateSensor extends AbstractPushSensor
 			PhoneStateProcessor processor = (PhoneStateProcessor) getProcessor();
 			if (processor != null)
 			{
-				PhoneStateData phoneStateData = processor.process(System.currentTimeMillis(), sensorConfig.clone(), eventType, data, number);
+				PhoneStateData phoneStateData = (PhoneStateData) newSensorData();
+				processor.process(phoneStateData, eventType, data, number);
 				onDataSensed(phoneStateData);
 			}
 		}
 	}
 
+	protected PhoneStateData createSensorData(long sensorTimestamp, SensorConfig config)
+	{
+		return new PhoneStateData(sensorTimestamp, config);
+	}
+
 	protected void onBroadcastReceived(Context context, Intent intent)
 	{
 		String outgoingNumber = intent.getStringExtra(Intent.EXTRA_PHONE_NUMBER);
@@ -30,6 +30,7 @@ import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 
+import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pushsensor.ProximityData;
 import com.ubhave.sensormanager.process.push.ProximityProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -69,7 +70,8 @@ public class ProximitySensor extends AbstractPushSensor
 				float maxRange = event.sensor.getMaximumRange();
 				
 				ProximityProcessor processor = (ProximityProcessor) getProcessor();
-				ProximityData proximityData = processor.process(System.currentTimeMillis(), sensorConfig.clone(), distance, maxRange);
+				ProximityData proximityData = (ProximityData) newSensorData();
+				processor.process(proximityData, distance, maxRange);
 				onDataSensed(proximityData);
 			}
 
@@ -80,6 +82,11 @@ public class ProximitySensor extends AbstractPushSensor
 		};
 	}
 
+	protected ProximityData createSensorData(long sensorTimestamp, SensorConfig config)
+	{
+		return new ProximityData(sensorTimestamp, config);
+	}
+
 	public String getLogTag()
 	{
 		return TAG;
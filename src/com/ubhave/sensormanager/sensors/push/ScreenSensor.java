@@ -26,6 +26,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 
+import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pushsensor.ScreenData;
 import com.ubhave.sensormanager.process.push.ScreenProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -72,10 +73,16 @@ public class ScreenSensor extends AbstractPushSensor
 		ScreenProcessor processor = (ScreenProcessor) super.getProcessor();
 		int status = ScreenData.SCREEN_UNKNOWN;
 		
-		ScreenData screenData = processor.process(System.currentTimeMillis(), sensorConfig.clone(), status);
+		ScreenData screenData = (ScreenData) newSensorData();
+		processor.process(screenData, status);
 		onDataSensed(screenData);
 	}
 
+	protected ScreenData createSensorData(long sensorTimestamp, SensorConfig config)
+	{
+		return new ScreenData(sensorTimestamp, config);
+	}
+
 	protected IntentFilter[] getIntentFilters()
 	{
 		IntentFilter[] filters = new IntentFilter[2];
@@ -34,6 +34,7 @@ import android.os.Handler;
 import android.telephony.SmsMessage;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.pushsensor.SmsData;
 import com.ubhave.sensormanager.process.push.SMSProcessor;
 import com.ubhave.sensormanager.sensors.SensorUtils;
@@ -97,23 +98,29 @@ public class SmsSensor extends AbstractPushSensor
 					else
 					{
 						prevMessageId = messageId;
-						logDataSensed(System.currentTimeMillis(), content, sentTo, SmsData.SMS_CONTENT_CHANGED);
+						logDataSensed(content, sentTo, SmsData.SMS_CONTENT_CHANGED);
 					}
 				}
 			}
 		};
 	}
 
-	private void logDataSensed(long timestamp, String content, String addr, String eventType)
+	private void logDataSensed(String content, String addr, String eventType)
 	{
 		SMSProcessor processor = (SMSProcessor) getProcessor();
 		if (processor != null)
 		{
-			SmsData data = (SmsData) processor.process(timestamp, sensorConfig.clone(), content, addr, eventType);
+			SmsData data = (SmsData) newSensorData();
+			processor.process(data, content, addr, eventType);
 			onDataSensed(data);
 		}
 	}
 
+	protected SmsData createSensorData(long sensorTimestamp, SensorConfig config)
+	{
+		return new SmsData(sensorTimestamp, config);
+	}
+
 	public String getLogTag()
 	{
 		return TAG;
@@ -143,7 +150,7 @@ public class SmsSensor extends AbstractPushSensor
 						String address = smsMessagesArray[i].getOriginatingAddress();
 						String content = smsMessagesArray[i].getMessageBody();
 						
-						logDataSensed(System.currentTimeMillis(), content, address, SmsData.SMS_RECEIVED);
+						logDataSensed(content, address, SmsData.SMS_RECEIVED);
 					}
 				}
 				catch (Exception e)
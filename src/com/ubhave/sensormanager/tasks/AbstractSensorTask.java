@@ -22,61 +22,51 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager.tasks;
 
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import android.os.AsyncTask;
 import android.util.Log;
 
 import com.ubhave.sensormanager.ESException;
 import com.ubhave.sensormanager.ESSensorManager;
 import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.classifier.SensorDataClassifier;
 import com.ubhave.sensormanager.config.GlobalConfig;
+import com.ubhave.sensormanager.config.SensorManagerConstants;
 import com.ubhave.sensormanager.data.SensorData;
 import com.ubhave.sensormanager.data.pushsensor.BatteryData;
 import com.ubhave.sensormanager.dutycyling.AdaptiveSensing;
+import com.ubhave.sensormanager.scheduler.HashedTimingWheel.Timeout;
+import com.ubhave.sensormanager.scheduler.SensingScheduler;
 import com.ubhave.sensormanager.sensors.SensorInterface;
 import com.ubhave.sensormanager.sensors.SensorUtils;
 
-public abstract class AbstractSensorTask extends Thread
+public abstract class AbstractSensorTask
 {
-	private class StopTask extends AsyncTask<Void, Void, Void>
-	{
-
-		@Override
-		protected Void doInBackground(Void... arg0)
-		{
-			stopTask();
-			return null;
-		}
-
-	}
-
-	private class NotificationTask extends Thread
-	{
-		private SensorData sensorData;
-
-		public NotificationTask(SensorData sensorData)
-		{
-			this.sensorData = sensorData;
-		}
-
-		@Override
-		public void run()
-		{
-			notifications(sensorData);
-		}
-
-	}
-
 	// private static String TAG = "AbstractSensorTask";
 
 	protected SensorInterface sensor;
 	protected Object syncObject = new Object();
+	protected final SensingScheduler scheduler;
+	protected final NotificationDispatcher notificationDispatcher;
 
-	protected int state;
+	// lifecycle state, only changed by compare-and-set in transition()
+	protected final AtomicInteger state;
 	protected long pauseTime;
-
-	protected ArrayList<SensorDataListener> listenerList;
+	// the expiry of the current pause and the task it runs, guarded by
+	// syncObject; an expiry only resumes the pause it was scheduled for
+	private Timeout pauseExpiry;
+	private Runnable pauseExpiryTask;
+	// whether onTaskStarted() has run without a matching onTaskStopped(),
+	// guarded by syncObject
+	private boolean isSensorStarted;
+	private final CopyOnWriteArrayList<TaskStateListener> stateListeners;
+
+	protected final ListenerRegistry listenerRegistry;
+	// the only listener when the task was paused on its behalf, guarded by
+	// listenerRegistry
+	private SensorDataListener pausingListener;
+	protected final SampleCache sampleCache;
 
 	public static final int RUNNING = 6123;
 	public static final int PAUSED = 6124;
@@ -85,23 +75,26 @@ public abstract class AbstractSensorTask extends Thread
 	public AbstractSensorTask(SensorInterface sensor)
 	{
 		this.sensor = sensor;
-		listenerList = new ArrayList<SensorDataListener>();
+		listenerRegistry = new ListenerRegistry();
+		sampleCache = new SampleCache(SensorManagerConstants.SAMPLE_CACHE_SIZE);
+		scheduler = SensingScheduler.getSensingScheduler();
+		notificationDispatcher = NotificationDispatcher.getNotificationDispatcher();
+		state = new AtomicInteger(STOPPED);
+		stateListeners = new CopyOnWriteArrayList<TaskStateListener>();
 	}
 
-	public abstract void run();
+	// called with syncObject held when the task enters RUNNING
+	protected abstract void onTaskStarted();
+
+	// called with syncObject held when the task leaves RUNNING, once for
+	// every onTaskStarted()
+	protected abstract void onTaskStopped();
 
 	public SensorInterface getSensor()
 	{
 		return sensor;
 	}
 
-	@Override
-	public void start()
-	{
-		state = STOPPED;
-		super.start();
-	}
-
 	protected String getLogTag()
 	{
 		String sensorName = "";
@@ -123,60 +116,179 @@ public abstract class AbstractSensorTask extends Thread
 	}
 
 	public boolean registerSensorDataListener(SensorDataListener listener)
+	{
+		return registerSensorDataListener(listener, listener);
+	}
+
+	public boolean registerSensorDataListener(SensorDataListener listener, SensorDataListener deliveryTarget)
+	{
+		return registerSensorDataListener(listener, deliveryTarget, null);
+	}
+
+	// samples the filter does not find interesting are not delivered
+	public boolean registerSensorDataListener(SensorDataListener listener, SensorDataListener deliveryTarget,
+			SensorDataClassifier filter)
 	{
 		Log.d(getLogTag(), "registerSensorDataListener() listener: " + listener);
 
-		synchronized (listenerList)
+		// registry changes and the start/stop decision they lead to are made
+		// together, so a stop cannot overtake a concurrent registration
+		synchronized (listenerRegistry)
 		{
-			for (int i = 0; i < listenerList.size(); i++)
+			if (!listenerRegistry.add(listener, deliveryTarget, filter))
 			{
-				if (listenerList.get(i) == listener)
-				{
-					return false;
-				}
+				return false;
+			}
+			if ((pausingListener != null) && (state.get() == PAUSED))
+			{
+				// one subscriber's pause must not starve a new one: the
+				// pausing listener leaves instead, see resumeTask(listener)
+				listenerRegistry.remove(pausingListener);
+				pausingListener = null;
+				resumeTask();
 			}
-			listenerList.add(listener);
 			startTask();
 			return true;
 		}
 	}
 
-	protected void publishData(SensorData sensorData)
+	/*
+	 * Registers the listener and replays up to replayCount cached samples to
+	 * it before any live one. The registration and the cache snapshot are
+	 * taken under the cache's lock, which publishData() holds while it
+	 * caches a sample and snapshots the listeners, so each sample is either
+	 * replayed or delivered live, never both.
+	 */
+	public boolean registerSensorDataListener(SensorDataListener listener, SensorDataListener deliveryTarget,
+			SensorDataClassifier filter, int replayCount)
 	{
-		synchronized (listenerList)
+		if (replayCount <= 0)
+		{
+			return registerSensorDataListener(listener, deliveryTarget, filter);
+		}
+
+		ReplayGate gate = new ReplayGate(deliveryTarget);
+		SensorData[] recent;
+		synchronized (sampleCache)
+		{
+			if (!registerSensorDataListener(listener, gate, filter))
+			{
+				return false;
+			}
+			recent = sampleCache.getRecent(replayCount);
+		}
+
+		try
 		{
-			for (SensorDataListener listener : listenerList)
+			for (SensorData sensorData : recent)
 			{
-				if (sensorData != null)
+				if ((filter == null) || isInteresting(filter, sensorData))
 				{
-					listener.onDataSensed(sensorData);
+					deliveryTarget.onDataSensed(sensorData);
 				}
-				else
+			}
+		}
+		finally
+		{
+			gate.open();
+		}
+		return true;
+	}
+
+	protected void publishData(SensorData sensorData)
+	{
+		if (sensorData != null)
+		{
+			// iterates over a snapshot, listeners can (un)register meanwhile
+			ListenerRegistry.Snapshot snapshot;
+			synchronized (sampleCache)
+			{
+				sampleCache.add(sensorData);
+				snapshot = listenerRegistry.getSnapshot();
+			}
+			SensorDataListener[] targets = snapshot.targets;
+			int[] filterIndex = snapshot.filterIndex;
+
+			// each distinct filter is evaluated at most once per sample; the
+			// results of the first 64 are kept in bit masks
+			long evaluated = 0;
+			long accepted = 0;
+			for (int i = 0; i < targets.length; i++)
+			{
+				int filter = filterIndex[i];
+				if (filter >= 0)
 				{
-					Log.d(getLogTag(), "sensorData is null");
+					boolean isAccepted;
+					if (filter < 64)
+					{
+						long bit = 1L << filter;
+						if ((evaluated & bit) == 0)
+						{
+							evaluated |= bit;
+							if (isInteresting(snapshot.filters[filter], sensorData))
+							{
+								accepted |= bit;
+							}
+						}
+						isAccepted = (accepted & bit) != 0;
+					}
+					else
+					{
+						isAccepted = isInteresting(snapshot.filters[filter], sensorData);
+					}
+
+					if (!isAccepted)
+					{
+						continue;
+					}
 				}
+				targets[i].onDataSensed(sensorData);
+			}
+
+			// check for any triggers/notifications to be sent
+			// based on the received sensorData; only samples that can
+			// trigger one are queued
+			if (hasNotifications(sensorData))
+			{
+				notificationDispatcher.dispatch(this, sensorData);
 			}
 		}
+		else
+		{
+			Log.d(getLogTag(), "sensorData is null");
+		}
+	}
 
-		// check for any triggers/notifications to be sent
-		// based on the received sensorData
-		new NotificationTask(sensorData).start();
+	// the latest sample, if it is no older than maxAgeMillis; never senses
+	public SensorData getCachedData(long maxAgeMillis)
+	{
+		return sampleCache.getLatest(maxAgeMillis);
+	}
 
+	private boolean isInteresting(SensorDataClassifier filter, SensorData sensorData)
+	{
+		try
+		{
+			return filter.isInteresting(sensorData);
+		}
+		catch (RuntimeException exp)
+		{
+			// a broken filter drops the sample rather than the publish
+			exp.printStackTrace();
+			return false;
+		}
 	}
 
 	protected void publishBatteryNotification(boolean isBelowThreshold)
 	{
 		// publish only to sensor manager, which in turn publishes to
 		// all other listeners
-		synchronized (listenerList)
+		for (SensorDataListener listener : listenerRegistry.getListeners())
 		{
-			for (SensorDataListener listener : listenerList)
+			if (listener instanceof ESSensorManager)
 			{
-				if (listener instanceof ESSensorManager)
-				{
-					listener.onCrossingLowBatteryThreshold(isBelowThreshold);
-					break;
-				}
+				listener.onCrossingLowBatteryThreshold(isBelowThreshold);
+				break;
 			}
 		}
 	}
@@ -184,6 +296,13 @@ public abstract class AbstractSensorTask extends Thread
 	private boolean isBelowThresholdNotified = false;
 	private boolean isAboveThresholdNotified = false;
 
+	// whether notifications() acts on the sample; keep the two in step
+	protected boolean hasNotifications(SensorData sensorData)
+	{
+		return sensorData instanceof BatteryData;
+	}
+
+	// runs on the NotificationDispatcher event loop
 	protected void notifications(SensorData sensorData)
 	{
 		if (sensorData instanceof BatteryData)
@@ -217,68 +336,196 @@ public abstract class AbstractSensorTask extends Thread
 
 	public void unregisterSensorDataListener(SensorDataListener listener)
 	{
-		synchronized (listenerList)
+		synchronized (listenerRegistry)
 		{
-			listenerList.remove(listener);
-			if (listenerList.isEmpty())
+			listenerRegistry.remove(listener);
+			if (listenerRegistry.isEmpty())
 			{
-				new StopTask().execute();
+				stopTask();
 			}
-			else if (listenerList.size() == 1)
+			else if (listenerRegistry.size() == 1)
 			{
 				// if adaptive sensing is enabled then it'll also be
 				// a listener to the sensor, therefore, if adaptive sensing
 				// is the only listener then stop the sensor
 				if (AdaptiveSensing.getAdaptiveSensing().isSensorRegistered(this.getSensor())
-						&& listenerList.contains(AdaptiveSensing.getAdaptiveSensing()))
+						&& listenerRegistry.contains(AdaptiveSensing.getAdaptiveSensing()))
 				{
-					new StopTask().execute();
+					stopTask();
 				}
 
 			}
 		}
 	}
 
-	public void startTask()
+	// true if listener is the only one registered with this task
+	public boolean isOnlyListener(SensorDataListener listener)
 	{
-		if (state == STOPPED)
+		synchronized (listenerRegistry)
 		{
-			synchronized (syncObject)
+			return (listenerRegistry.size() == 1) && listenerRegistry.contains(listener);
+		}
+	}
+
+	public void addTaskStateListener(TaskStateListener listener)
+	{
+		stateListeners.addIfAbsent(listener);
+	}
+
+	public void removeTaskStateListener(TaskStateListener listener)
+	{
+		stateListeners.remove(listener);
+	}
+
+	public int getState()
+	{
+		return state.get();
+	}
+
+	/*
+	 * Moves the task from one state to another if it is still in the first;
+	 * whoever wins the compare-and-set then brings the sensor in line with the
+	 * state the task is in by the time it gets syncObject, so overlapping
+	 * start/stop/pause calls never leave a sensor started by a stopped task
+	 * (or the reverse), and never start or stop it twice.
+	 */
+	private boolean transition(int fromState, int toState)
+	{
+		if (!state.compareAndSet(fromState, toState))
+		{
+			return false;
+		}
+
+		synchronized (syncObject)
+		{
+			boolean shouldSense = (state.get() == RUNNING);
+			if (shouldSense && !isSensorStarted)
 			{
-				syncObject.notify();
+				isSensorStarted = true;
+				onTaskStarted();
+			}
+			else if (!shouldSense && isSensorStarted)
+			{
+				isSensorStarted = false;
+				onTaskStopped();
 			}
 		}
-		else
+
+		for (TaskStateListener listener : stateListeners)
 		{
-			// ignore
+			listener.onTaskStateChanged(this, fromState, toState);
 		}
+		return true;
 	}
 
-	private void stopTask()
+	public void startTask()
 	{
-		if (state == STOPPED)
-		{
-			// ignore
-		}
-		else
+		transition(STOPPED, RUNNING);
+	}
+
+	public boolean pauseTask(long pauseLengthMillis)
+	{
+		if (transition(RUNNING, PAUSED))
 		{
 			synchronized (syncObject)
 			{
-				synchronized (listenerList)
+				pauseTime = pauseLengthMillis;
+				// set before scheduling, an expiry that fires at once must
+				// still find itself current
+				pauseExpiryTask = new Runnable()
 				{
-					if (listenerList.isEmpty())
+					public void run()
 					{
-						state = STOPPED;
-						this.interrupt();
+						resumeTask(this);
 					}
-				}
+				};
+				pauseExpiry = scheduler.schedule(pauseExpiryTask, pauseTime);
 			}
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Pauses the task for listener, if it is the only one. Should another
+	 * listener register meanwhile, the task resumes for it and listener is
+	 * unregistered instead.
+	 */
+	public boolean pauseTask(SensorDataListener listener, long pauseLengthMillis)
+	{
+		synchronized (listenerRegistry)
+		{
+			if (isOnlyListener(listener) && pauseTask(pauseLengthMillis))
+			{
+				pausingListener = listener;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	// ends a pause taken by pauseTask(listener, ...); false if listener was
+	// unregistered meanwhile, see there
+	public boolean resumeTask(SensorDataListener listener)
+	{
+		synchronized (listenerRegistry)
+		{
+			if (pausingListener != listener)
+			{
+				return false;
+			}
+			pausingListener = null;
+		}
+		resumeTask();
+		return true;
+	}
+
+	// ends a pause before its expiry
+	public void resumeTask()
+	{
+		cancelPauseExpiry();
+		transition(PAUSED, RUNNING);
+	}
+
+	private void resumeTask(Runnable expiryTask)
+	{
+		synchronized (syncObject)
+		{
+			// ignore the expiry of an earlier pause
+			if (expiryTask != pauseExpiryTask)
+			{
+				return;
+			}
+			pauseExpiryTask = null;
+			pauseExpiry = null;
+		}
+		transition(PAUSED, RUNNING);
+	}
+
+	private void cancelPauseExpiry()
+	{
+		synchronized (syncObject)
+		{
+			if (pauseExpiry != null)
+			{
+				pauseExpiry.cancel();
+			}
+			pauseExpiryTask = null;
+			pauseExpiry = null;
+		}
+	}
+
+	private void stopTask()
+	{
+		if (!transition(RUNNING, STOPPED) && transition(PAUSED, STOPPED))
+		{
+			cancelPauseExpiry();
 		}
 	}
 
 	public boolean isRunning()
 	{
-		if (state == RUNNING)
+		if (state.get() == RUNNING)
 		{
 			return true;
 		}
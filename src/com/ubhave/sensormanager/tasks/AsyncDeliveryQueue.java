@@ -0,0 +1,227 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+
+package com.ubhave.sensormanager.tasks;
+
+import android.util.Log;
+
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.config.SubscriptionConfig;
+import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.scheduler.SensingScheduler;
+
+/*
+ * Bounded queue between a sensor task and one subscription's listener. The
+ * task enqueues and returns straight away; a delivery worker on the sensing
+ * scheduler drains the queue and exits when it is empty, so an idle
+ * subscription holds no thread. What happens when the queue is full is set
+ * by the subscription's SubscriptionConfig.DELIVERY_OVERFLOW_POLICY.
+ */
+
+public class AsyncDeliveryQueue implements SensorDataListener
+{
+	private static final String TAG = "AsyncDeliveryQueue";
+
+	private final SensorDataListener listener;
+	private final String overflowPolicy;
+	private final SensingScheduler scheduler;
+	private final Runnable drainJob;
+
+	// circular buffer of queued samples and the time they were queued
+	private final SensorData[] queue;
+	private final long[] queuedAt;
+	private int head;
+	private int count;
+
+	private boolean isDraining;
+	private boolean isClosed;
+
+	private long deliveredCount;
+	private long droppedCount;
+	private long coalescedCount;
+	private long lastLagMillis;
+	private long maxLagMillis;
+	private long totalLagMillis;
+
+	public AsyncDeliveryQueue(SensorDataListener listener, int capacity, String overflowPolicy)
+	{
+		this.listener = listener;
+		this.overflowPolicy = overflowPolicy;
+		this.queue = new SensorData[Math.max(1, capacity)];
+		this.queuedAt = new long[queue.length];
+		this.scheduler = SensingScheduler.getSensingScheduler();
+		this.drainJob = new Runnable()
+		{
+			public void run()
+			{
+				drain();
+			}
+		};
+	}
+
+	public SensorDataListener getListener()
+	{
+		return listener;
+	}
+
+	public void onDataSensed(SensorData data)
+	{
+		synchronized (this)
+		{
+			if (isClosed)
+			{
+				return;
+			}
+
+			if (count == queue.length)
+			{
+				if (overflowPolicy.equals(SubscriptionConfig.OVERFLOW_DROP_NEWEST))
+				{
+					droppedCount++;
+					return;
+				}
+				else if (overflowPolicy.equals(SubscriptionConfig.OVERFLOW_COALESCE_LATEST))
+				{
+					coalescedCount += count;
+					clear();
+				}
+				else if (overflowPolicy.equals(SubscriptionConfig.OVERFLOW_BLOCK))
+				{
+					while ((count == queue.length) && !isClosed)
+					{
+						try
+						{
+							wait();
+						}
+						catch (InterruptedException exp)
+						{
+							Log.d(TAG, "onDataSensed() interrupted while blocked, dropping sample");
+							droppedCount++;
+							return;
+						}
+					}
+					if (isClosed)
+					{
+						return;
+					}
+				}
+				else
+				{
+					// OVERFLOW_DROP_OLDEST
+					queue[head].release();
+					queue[head] = null;
+					head = (head + 1) % queue.length;
+					count--;
+					droppedCount++;
+				}
+			}
+
+			int tail = (head + count) % queue.length;
+			queue[tail] = data.retain();
+			queuedAt[tail] = System.currentTimeMillis();
+			count++;
+
+			if (!isDraining)
+			{
+				isDraining = true;
+				scheduler.execute(drainJob);
+			}
+		}
+	}
+
+	public void onCrossingLowBatteryThreshold(boolean isBelowThreshold)
+	{
+		listener.onCrossingLowBatteryThreshold(isBelowThreshold);
+	}
+
+	private void drain()
+	{
+		while (true)
+		{
+			SensorData data;
+			synchronized (this)
+			{
+				if ((count == 0) || isClosed)
+				{
+					isDraining = false;
+					return;
+				}
+				data = queue[head];
+				long lag = System.currentTimeMillis() - queuedAt[head];
+				queue[head] = null;
+				head = (head + 1) % queue.length;
+				count--;
+
+				deliveredCount++;
+				lastLagMillis = lag;
+				totalLagMillis += lag;
+				if (lag > maxLagMillis)
+				{
+					maxLagMillis = lag;
+				}
+				// wake up a sensing thread blocked on a full queue
+				notifyAll();
+			}
+
+			try
+			{
+				listener.onDataSensed(data);
+			}
+			catch (RuntimeException exp)
+			{
+				exp.printStackTrace();
+			}
+			finally
+			{
+				data.release();
+			}
+		}
+	}
+
+	private void clear()
+	{
+		for (int i = 0; i < queue.length; i++)
+		{
+			if (queue[i] != null)
+			{
+				queue[i].release();
+				queue[i] = null;
+			}
+		}
+		head = 0;
+		count = 0;
+	}
+
+	public synchronized void close()
+	{
+		isClosed = true;
+		droppedCount += count;
+		clear();
+		notifyAll();
+	}
+
+	public synchronized DeliveryStatistics getDeliveryStatistics()
+	{
+		return new DeliveryStatistics(count, queue.length, deliveredCount, droppedCount, coalescedCount,
+				lastLagMillis, maxLagMillis, totalLagMillis);
+	}
+}
@@ -0,0 +1,160 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ubhave.sensormanager.SensorDataBatchListener;
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.scheduler.HashedTimingWheel.Timeout;
+import com.ubhave.sensormanager.scheduler.SensingScheduler;
+
+/*
+ * Collects the samples a sensor task publishes and hands them to a
+ * SensorDataBatchListener as one list, either when maxBatchSize samples have
+ * accumulated (on the publishing thread) or maxLatencyMillis after the first
+ * sample of the batch arrived (on a sensing worker), whichever comes first.
+ */
+
+public class BatchingListener implements SensorDataListener
+{
+	private final SensorDataBatchListener listener;
+	private final int maxBatchSize;
+	private final long maxLatencyMillis;
+	private final SensingScheduler scheduler;
+	private final Runnable flushJob;
+
+	// held while a batch is taken and delivered so batches arrive in order
+	private final Object deliveryLock = new Object();
+
+	private ArrayList<SensorData> batch;
+	private Timeout latencyExpiry;
+	private boolean isClosed;
+
+	public BatchingListener(SensorDataBatchListener listener, int maxBatchSize, long maxLatencyMillis)
+	{
+		this.listener = listener;
+		this.maxBatchSize = maxBatchSize;
+		this.maxLatencyMillis = maxLatencyMillis;
+		this.scheduler = SensingScheduler.getSensingScheduler();
+		this.batch = new ArrayList<SensorData>(maxBatchSize);
+		this.flushJob = new Runnable()
+		{
+			public void run()
+			{
+				flush();
+			}
+		};
+	}
+
+	public SensorDataBatchListener getBatchListener()
+	{
+		return listener;
+	}
+
+	public void onDataSensed(SensorData data)
+	{
+		boolean isFull;
+		synchronized (this)
+		{
+			if (isClosed)
+			{
+				return;
+			}
+
+			batch.add(data.retain());
+			isFull = batch.size() >= maxBatchSize;
+			if (!isFull && (latencyExpiry == null))
+			{
+				latencyExpiry = scheduler.schedule(flushJob, maxLatencyMillis);
+			}
+		}
+
+		if (isFull)
+		{
+			flush();
+		}
+	}
+
+	public void onCrossingLowBatteryThreshold(boolean isBelowThreshold)
+	{
+		listener.onCrossingLowBatteryThreshold(isBelowThreshold);
+	}
+
+	public void flush()
+	{
+		synchronized (deliveryLock)
+		{
+			List<SensorData> fullBatch;
+			synchronized (this)
+			{
+				if (latencyExpiry != null)
+				{
+					latencyExpiry.cancel();
+					latencyExpiry = null;
+				}
+
+				if (batch.isEmpty() || isClosed)
+				{
+					return;
+				}
+				fullBatch = batch;
+				batch = new ArrayList<SensorData>(maxBatchSize);
+			}
+
+			try
+			{
+				listener.onDataSensedBatch(fullBatch);
+			}
+			catch (RuntimeException exp)
+			{
+				exp.printStackTrace();
+			}
+			finally
+			{
+				releaseAll(fullBatch);
+			}
+		}
+	}
+
+	public synchronized void close()
+	{
+		isClosed = true;
+		if (latencyExpiry != null)
+		{
+			latencyExpiry.cancel();
+			latencyExpiry = null;
+		}
+		releaseAll(batch);
+		batch.clear();
+	}
+
+	private static void releaseAll(List<SensorData> samples)
+	{
+		for (SensorData data : samples)
+		{
+			data.release();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+import java.util.Random;
+
+import com.ubhave.sensormanager.config.SensorManagerConstants;
+
+/*
+ * Failure tracking for one pull sensor. Each consecutive failed sense doubles
+ * the wait before the next attempt (with jitter, so sensors that fail together
+ * do not retry together). After CIRCUIT_BREAKER_FAILURE_THRESHOLD failures in
+ * a row the breaker opens: the sensor is only tried again, half-open, once
+ * the open period has passed or when halfOpen() reports that conditions have
+ * changed. A success closes it again.
+ */
+
+public class CircuitBreaker
+{
+	public static final int CLOSED = 0;
+	public static final int OPEN = 1;
+	public static final int HALF_OPEN = 2;
+
+	private final Random random;
+
+	private int breakerState;
+	private int consecutiveFailures;
+	private long failureCount;
+	private long successCount;
+	private long openCount;
+	private long lastFailureTime;
+
+	public CircuitBreaker()
+	{
+		random = new Random();
+		breakerState = CLOSED;
+	}
+
+	// returns true if this closed an open or half-open breaker
+	public synchronized boolean recordSuccess()
+	{
+		boolean wasOpen = (breakerState != CLOSED);
+		successCount++;
+		consecutiveFailures = 0;
+		breakerState = CLOSED;
+		return wasOpen;
+	}
+
+	public synchronized void recordFailure()
+	{
+		failureCount++;
+		consecutiveFailures++;
+		lastFailureTime = System.currentTimeMillis();
+		if ((breakerState == HALF_OPEN)
+				|| ((breakerState == CLOSED) && (consecutiveFailures >= SensorManagerConstants.CIRCUIT_BREAKER_FAILURE_THRESHOLD)))
+		{
+			if (breakerState == CLOSED)
+			{
+				openCount++;
+			}
+			breakerState = OPEN;
+		}
+	}
+
+	// the wait before the next attempt after a failure
+	public synchronized long getRetryDelay()
+	{
+		if (breakerState == OPEN)
+		{
+			return SensorManagerConstants.CIRCUIT_BREAKER_OPEN_MILLIS;
+		}
+
+		long delay = SensorManagerConstants.SENSE_RETRY_BASE_MILLIS;
+		for (int i = 1; (i < consecutiveFailures) && (delay < SensorManagerConstants.SENSE_RETRY_MAX_MILLIS); i++)
+		{
+			delay *= 2;
+		}
+		delay = Math.min(delay, SensorManagerConstants.SENSE_RETRY_MAX_MILLIS);
+		// between half and all of the backoff
+		return (delay / 2) + (long) (random.nextDouble() * (delay / 2));
+	}
+
+	// called before an attempt: an open breaker lets this attempt through
+	public synchronized void onAttempt()
+	{
+		if (breakerState == OPEN)
+		{
+			breakerState = HALF_OPEN;
+		}
+	}
+
+	// returns true if the breaker was open and the next attempt may go ahead
+	public synchronized boolean halfOpen()
+	{
+		if (breakerState == OPEN)
+		{
+			breakerState = HALF_OPEN;
+			return true;
+		}
+		return false;
+	}
+
+	// returns true if the breaker was open or half-open
+	public synchronized boolean reset()
+	{
+		boolean wasOpen = (breakerState != CLOSED);
+		breakerState = CLOSED;
+		consecutiveFailures = 0;
+		return wasOpen;
+	}
+
+	public synchronized boolean isOpen()
+	{
+		return breakerState != CLOSED;
+	}
+
+	public synchronized SenseFailureStatistics getStatistics()
+	{
+		return new SenseFailureStatistics(breakerState, consecutiveFailures, failureCount, successCount, openCount,
+				lastFailureTime);
+	}
+}
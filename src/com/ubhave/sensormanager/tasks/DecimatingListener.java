@@ -0,0 +1,88 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.data.SensorData;
+
+/*
+ * Delivery target of a subscription that asked for its own sampling interval
+ * and/or sense window (see SubscriptionConfig). The sensor task senses for
+ * the most demanding of its subscriptions; this passes on only the samples
+ * that are at least samplingIntervalMillis apart, so slower subscribers are
+ * served by the same senses instead of running their own.
+ */
+
+public class DecimatingListener implements SensorDataListener
+{
+	private final SensorDataListener target;
+	private final long samplingIntervalMillis;
+	private final long senseWindowMillis;
+
+	private boolean hasDelivered;
+	private long lastDeliveredTimestamp;
+	private long skippedCount;
+
+	public DecimatingListener(SensorDataListener target, long samplingIntervalMillis, long senseWindowMillis)
+	{
+		this.target = target;
+		this.samplingIntervalMillis = samplingIntervalMillis;
+		this.senseWindowMillis = senseWindowMillis;
+	}
+
+	// 0 if the subscription takes the sensor's configured interval
+	public long getSamplingIntervalMillis()
+	{
+		return samplingIntervalMillis;
+	}
+
+	// 0 if the subscription takes the sensor's configured window
+	public long getSenseWindowMillis()
+	{
+		return senseWindowMillis;
+	}
+
+	public synchronized long getSkippedCount()
+	{
+		return skippedCount;
+	}
+
+	public void onDataSensed(SensorData data)
+	{
+		synchronized (this)
+		{
+			if (hasDelivered && (data.getTimestamp() - lastDeliveredTimestamp < samplingIntervalMillis))
+			{
+				skippedCount++;
+				return;
+			}
+			hasDelivered = true;
+			lastDeliveredTimestamp = data.getTimestamp();
+		}
+		target.onDataSensed(data);
+	}
+
+	public void onCrossingLowBatteryThreshold(boolean isBelowThreshold)
+	{
+		target.onCrossingLowBatteryThreshold(isBelowThreshold);
+	}
+}
@@ -0,0 +1,97 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+
+package com.ubhave.sensormanager.tasks;
+
+/*
+ * Snapshot of an asynchronous subscription's delivery queue. Lag is the time
+ * a sample spent queued before it was handed to the listener.
+ */
+
+public class DeliveryStatistics
+{
+	private final int queueDepth;
+	private final int queueCapacity;
+	private final long deliveredCount;
+	private final long droppedCount;
+	private final long coalescedCount;
+	private final long lastLagMillis;
+	private final long maxLagMillis;
+	private final long totalLagMillis;
+
+	public DeliveryStatistics(int queueDepth, int queueCapacity, long deliveredCount, long droppedCount,
+			long coalescedCount, long lastLagMillis, long maxLagMillis, long totalLagMillis)
+	{
+		this.queueDepth = queueDepth;
+		this.queueCapacity = queueCapacity;
+		this.deliveredCount = deliveredCount;
+		this.droppedCount = droppedCount;
+		this.coalescedCount = coalescedCount;
+		this.lastLagMillis = lastLagMillis;
+		this.maxLagMillis = maxLagMillis;
+		this.totalLagMillis = totalLagMillis;
+	}
+
+	public int getQueueDepth()
+	{
+		return queueDepth;
+	}
+
+	public int getQueueCapacity()
+	{
+		return queueCapacity;
+	}
+
+	public long getDeliveredCount()
+	{
+		return deliveredCount;
+	}
+
+	public long getDroppedCount()
+	{
+		return droppedCount;
+	}
+
+	public long getCoalescedCount()
+	{
+		return coalescedCount;
+	}
+
+	public long getLastLagMillis()
+	{
+		return lastLagMillis;
+	}
+
+	public long getMaxLagMillis()
+	{
+		return maxLagMillis;
+	}
+
+	public long getAverageLagMillis()
+	{
+		if (deliveredCount == 0)
+		{
+			return 0;
+		}
+		return totalLagMillis / deliveredCount;
+	}
+}
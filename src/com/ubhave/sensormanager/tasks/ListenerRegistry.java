@@ -0,0 +1,209 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+
+package com.ubhave.sensormanager.tasks;
+
+import java.util.IdentityHashMap;
+
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.classifier.SensorDataClassifier;
+
+/*
+ * Copy-on-write set of listeners. Registration and removal copy the listener
+ * array under the registry's lock and publish the new array, so publishing
+ * data only reads the current array and never blocks on (or is blocked by)
+ * listeners being added or removed. The array returned by getListeners()
+ * is shared and must not be modified.
+ *
+ * Each entry is registered under the subscriber's own listener, which is
+ * what duplicates are detected by, and data is published to its delivery
+ * target: the listener itself, or e.g. an AsyncDeliveryQueue in front of it.
+ * An entry can also have a filter; the distinct filters of all entries are
+ * kept alongside the targets, so that a filter shared by several entries is
+ * evaluated once per sample (see AbstractSensorTask.publishData).
+ */
+
+public class ListenerRegistry
+{
+	private static final SensorDataListener[] NO_LISTENERS = new SensorDataListener[0];
+
+	private static final SensorDataClassifier[] NO_FILTERS = new SensorDataClassifier[0];
+
+	/*
+	 * What publishing reads: the delivery targets, the distinct filters, and
+	 * for each target the index of its filter (or -1), replaced as a whole.
+	 */
+	public static class Snapshot
+	{
+		public final SensorDataListener[] targets;
+		public final SensorDataClassifier[] filters;
+		public final int[] filterIndex;
+
+		Snapshot(SensorDataListener[] targets, SensorDataClassifier[] filters, int[] filterIndex)
+		{
+			this.targets = targets;
+			this.filters = filters;
+			this.filterIndex = filterIndex;
+		}
+	}
+
+	private final IdentityHashMap<SensorDataListener, Integer> listenerIndex;
+	private SensorDataListener[] keys;
+	private SensorDataClassifier[] entryFilters;
+	private volatile SensorDataListener[] listeners;
+	private volatile Snapshot snapshot;
+
+	public ListenerRegistry()
+	{
+		listenerIndex = new IdentityHashMap<SensorDataListener, Integer>();
+		keys = NO_LISTENERS;
+		entryFilters = NO_FILTERS;
+		listeners = NO_LISTENERS;
+		snapshot = new Snapshot(NO_LISTENERS, NO_FILTERS, new int[0]);
+	}
+
+	public boolean add(SensorDataListener listener)
+	{
+		return add(listener, listener, null);
+	}
+
+	public boolean add(SensorDataListener listener, SensorDataListener deliveryTarget)
+	{
+		return add(listener, deliveryTarget, null);
+	}
+
+	public synchronized boolean add(SensorDataListener listener, SensorDataListener deliveryTarget,
+			SensorDataClassifier filter)
+	{
+		if (listenerIndex.containsKey(listener))
+		{
+			return false;
+		}
+
+		listenerIndex.put(listener, keys.length);
+		keys = append(keys, listener);
+		SensorDataClassifier[] updatedFilters = new SensorDataClassifier[entryFilters.length + 1];
+		System.arraycopy(entryFilters, 0, updatedFilters, 0, entryFilters.length);
+		updatedFilters[entryFilters.length] = filter;
+		entryFilters = updatedFilters;
+		listeners = append(listeners, deliveryTarget);
+		updateSnapshot();
+		return true;
+	}
+
+	public synchronized boolean remove(SensorDataListener listener)
+	{
+		Integer index = listenerIndex.remove(listener);
+		if (index == null)
+		{
+			return false;
+		}
+
+		int removed = index;
+		keys = removeAt(keys, removed);
+		SensorDataClassifier[] updatedFilters = new SensorDataClassifier[entryFilters.length - 1];
+		System.arraycopy(entryFilters, 0, updatedFilters, 0, removed);
+		System.arraycopy(entryFilters, removed + 1, updatedFilters, removed, entryFilters.length - removed - 1);
+		entryFilters = updatedFilters;
+		listeners = removeAt(listeners, removed);
+		for (int i = removed; i < keys.length; i++)
+		{
+			listenerIndex.put(keys[i], i);
+		}
+		updateSnapshot();
+		return true;
+	}
+
+	private void updateSnapshot()
+	{
+		IdentityHashMap<SensorDataClassifier, Integer> distinct = new IdentityHashMap<SensorDataClassifier, Integer>();
+		SensorDataClassifier[] filters = new SensorDataClassifier[entryFilters.length];
+		int[] filterIndex = new int[entryFilters.length];
+		for (int i = 0; i < entryFilters.length; i++)
+		{
+			SensorDataClassifier filter = entryFilters[i];
+			if (filter == null)
+			{
+				filterIndex[i] = -1;
+				continue;
+			}
+
+			Integer index = distinct.get(filter);
+			if (index == null)
+			{
+				index = distinct.size();
+				distinct.put(filter, index);
+				filters[index] = filter;
+			}
+			filterIndex[i] = index;
+		}
+
+		SensorDataClassifier[] distinctFilters = new SensorDataClassifier[distinct.size()];
+		System.arraycopy(filters, 0, distinctFilters, 0, distinctFilters.length);
+		snapshot = new Snapshot(listeners, distinctFilters, filterIndex);
+	}
+
+	public Snapshot getSnapshot()
+	{
+		return snapshot;
+	}
+
+	private static SensorDataListener[] append(SensorDataListener[] current, SensorDataListener listener)
+	{
+		SensorDataListener[] updated = new SensorDataListener[current.length + 1];
+		System.arraycopy(current, 0, updated, 0, current.length);
+		updated[current.length] = listener;
+		return updated;
+	}
+
+	private static SensorDataListener[] removeAt(SensorDataListener[] current, int index)
+	{
+		if (current.length == 1)
+		{
+			return NO_LISTENERS;
+		}
+		SensorDataListener[] updated = new SensorDataListener[current.length - 1];
+		System.arraycopy(current, 0, updated, 0, index);
+		System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+		return updated;
+	}
+
+	public synchronized boolean contains(SensorDataListener listener)
+	{
+		return listenerIndex.containsKey(listener);
+	}
+
+	public SensorDataListener[] getListeners()
+	{
+		return listeners;
+	}
+
+	public int size()
+	{
+		return listeners.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return listeners.length == 0;
+	}
+}
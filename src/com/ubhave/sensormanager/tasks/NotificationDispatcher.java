@@ -0,0 +1,164 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+
+package com.ubhave.sensormanager.tasks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.util.Log;
+
+import com.ubhave.sensormanager.config.SensorManagerConstants;
+import com.ubhave.sensormanager.data.SensorData;
+
+/*
+ * Single event loop that runs the triggers/notifications of every sensor task
+ * (see AbstractSensorTask.notifications()). Events are queued in a bounded
+ * queue; when the queue is full the new event is dropped and counted rather
+ * than blocking the thread that is publishing sensor data.
+ */
+
+public class NotificationDispatcher
+{
+	private static final String TAG = "NotificationDispatcher";
+
+	private static class NotificationEvent
+	{
+		final AbstractSensorTask task;
+		final SensorData sensorData;
+
+		NotificationEvent(AbstractSensorTask task, SensorData sensorData)
+		{
+			this.task = task;
+			this.sensorData = sensorData;
+		}
+	}
+
+	private static NotificationDispatcher notificationDispatcher;
+	private static final Object lock = new Object();
+
+	private final ArrayBlockingQueue<NotificationEvent> eventQueue;
+	private final AtomicLong dispatchedCount;
+	private final AtomicLong droppedCount;
+
+	public static NotificationDispatcher getNotificationDispatcher()
+	{
+		if (notificationDispatcher == null)
+		{
+			synchronized (lock)
+			{
+				if (notificationDispatcher == null)
+				{
+					notificationDispatcher = new NotificationDispatcher();
+				}
+			}
+		}
+		return notificationDispatcher;
+	}
+
+	private NotificationDispatcher()
+	{
+		eventQueue = new ArrayBlockingQueue<NotificationEvent>(SensorManagerConstants.NOTIFICATION_QUEUE_CAPACITY);
+		dispatchedCount = new AtomicLong();
+		droppedCount = new AtomicLong();
+
+		Thread eventLoop = new Thread(TAG)
+		{
+			public void run()
+			{
+				dispatchEvents();
+			}
+		};
+		eventLoop.setDaemon(true);
+		eventLoop.start();
+	}
+
+	public boolean dispatch(AbstractSensorTask task, SensorData sensorData)
+	{
+		if (eventQueue.offer(new NotificationEvent(task, sensorData.retain())))
+		{
+			return true;
+		}
+		else
+		{
+			sensorData.release();
+			droppedCount.incrementAndGet();
+			Log.d(TAG, "dispatch() queue full, dropping notification for: " + task.getSensorType());
+			return false;
+		}
+	}
+
+	private void dispatchEvents()
+	{
+		while (true)
+		{
+			try
+			{
+				NotificationEvent event = eventQueue.take();
+				try
+				{
+					event.task.notifications(event.sensorData);
+				}
+				finally
+				{
+					event.sensorData.release();
+				}
+				dispatchedCount.incrementAndGet();
+			}
+			catch (InterruptedException exp)
+			{
+				// ignore
+			}
+			catch (RuntimeException exp)
+			{
+				// a failing trigger must not stop the loop
+				exp.printStackTrace();
+			}
+		}
+	}
+
+	public int getQueueDepth()
+	{
+		return eventQueue.size();
+	}
+
+	public int getQueueCapacity()
+	{
+		return SensorManagerConstants.NOTIFICATION_QUEUE_CAPACITY;
+	}
+
+	public long getDispatchedCount()
+	{
+		return dispatchedCount.get();
+	}
+
+	public long getDroppedCount()
+	{
+		return droppedCount.get();
+	}
+
+	public NotificationStatistics getNotificationStatistics()
+	{
+		return new NotificationStatistics(getQueueDepth(), getQueueCapacity(), getDispatchedCount(),
+				getDroppedCount());
+	}
+}
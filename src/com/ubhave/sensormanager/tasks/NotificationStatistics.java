@@ -0,0 +1,64 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+/*
+ * Snapshot of the notification dispatcher's queue: samples waiting for
+ * their triggers to be checked, and how many were checked or dropped
+ * because the queue was full.
+ */
+
+public class NotificationStatistics
+{
+	private final int queueDepth;
+	private final int queueCapacity;
+	private final long dispatchedCount;
+	private final long droppedCount;
+
+	public NotificationStatistics(int queueDepth, int queueCapacity, long dispatchedCount, long droppedCount)
+	{
+		this.queueDepth = queueDepth;
+		this.queueCapacity = queueCapacity;
+		this.dispatchedCount = dispatchedCount;
+		this.droppedCount = droppedCount;
+	}
+
+	public int getQueueDepth()
+	{
+		return queueDepth;
+	}
+
+	public int getQueueCapacity()
+	{
+		return queueCapacity;
+	}
+
+	public long getDispatchedCount()
+	{
+		return dispatchedCount;
+	}
+
+	public long getDroppedCount()
+	{
+		return droppedCount;
+	}
+}
@@ -0,0 +1,184 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+import java.util.ArrayList;
+
+import com.ubhave.sensormanager.SensorDataBatchListener;
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.data.SensorData;
+
+/*
+ * Delivery stage that lets a subscription pause without leaving its sensor
+ * task: while paused, samples are kept in a bounded ring (the oldest are
+ * dropped when it is full) and handed over in order on resume(), as one
+ * batch if the subscriber is a SensorDataBatchListener. Samples pass
+ * through without a lock while not paused, and the target is never called
+ * with the lock held, since it may block (e.g. a full delivery queue).
+ */
+
+public class PausableListener implements SensorDataListener
+{
+	private final SensorDataListener target;
+	private final SensorDataBatchListener batchTarget;
+	private final SensorData[] buffer;
+	private int head;
+	private int count;
+	private long droppedCount;
+
+	// stays set until the buffer has been drained by resume()
+	private volatile boolean isPaused;
+	// one resume() drains at a time
+	private final Object resumeLock = new Object();
+
+	public PausableListener(SensorDataListener target, SensorDataBatchListener batchTarget, int capacity)
+	{
+		this.target = target;
+		this.batchTarget = batchTarget;
+		this.buffer = new SensorData[Math.max(1, capacity)];
+	}
+
+	public void onDataSensed(SensorData data)
+	{
+		if (isPaused && buffer(data))
+		{
+			return;
+		}
+		target.onDataSensed(data);
+	}
+
+	// false if the pause ended meanwhile and data is to be delivered
+	private synchronized boolean buffer(SensorData data)
+	{
+		if (!isPaused)
+		{
+			return false;
+		}
+
+		if (count == buffer.length)
+		{
+			buffer[head].release();
+			buffer[head] = null;
+			head = (head + 1) % buffer.length;
+			count--;
+			droppedCount++;
+		}
+		buffer[(head + count) % buffer.length] = data.retain();
+		count++;
+		return true;
+	}
+
+	public void onCrossingLowBatteryThreshold(boolean isBelowThreshold)
+	{
+		target.onCrossingLowBatteryThreshold(isBelowThreshold);
+	}
+
+	public synchronized void pause()
+	{
+		isPaused = true;
+	}
+
+	// delivers the buffered samples, and any buffered meanwhile, before
+	// letting new ones through
+	public void resume()
+	{
+		synchronized (resumeLock)
+		{
+			while (true)
+			{
+				ArrayList<SensorData> batch = takeBuffered();
+				if (batch == null)
+				{
+					return;
+				}
+				deliver(batch);
+			}
+		}
+	}
+
+	// the buffered samples, or null (and unpaused) if there are none
+	private synchronized ArrayList<SensorData> takeBuffered()
+	{
+		if (count == 0)
+		{
+			isPaused = false;
+			return null;
+		}
+
+		ArrayList<SensorData> batch = new ArrayList<SensorData>(count);
+		for (int i = 0; i < count; i++)
+		{
+			int index = (head + i) % buffer.length;
+			batch.add(buffer[index]);
+			buffer[index] = null;
+		}
+		head = 0;
+		count = 0;
+		return batch;
+	}
+
+	private void deliver(ArrayList<SensorData> batch)
+	{
+		try
+		{
+			if (batchTarget != null)
+			{
+				batchTarget.onDataSensedBatch(batch);
+			}
+			else
+			{
+				for (SensorData data : batch)
+				{
+					target.onDataSensed(data);
+				}
+			}
+		}
+		finally
+		{
+			for (SensorData data : batch)
+			{
+				data.release();
+			}
+		}
+	}
+
+	// drops anything buffered, e.g. when the subscription ends
+	public synchronized void clear()
+	{
+		isPaused = false;
+		for (int i = 0; i < buffer.length; i++)
+		{
+			if (buffer[i] != null)
+			{
+				buffer[i].release();
+				buffer[i] = null;
+			}
+		}
+		head = 0;
+		count = 0;
+	}
+
+	public synchronized long getDroppedCount()
+	{
+		return droppedCount;
+	}
+}
@@ -22,96 +22,406 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager.tasks;
 
+import java.util.concurrent.CountDownLatch;
+
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.ubhave.sensormanager.ESException;
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.config.GlobalConfig;
 import com.ubhave.sensormanager.config.SensorConfig;
 import com.ubhave.sensormanager.data.SensorData;
+import com.ubhave.sensormanager.dutycyling.SleepWindowListener;
+import com.ubhave.sensormanager.scheduler.HashedTimingWheel.Timeout;
 import com.ubhave.sensormanager.sensors.SensorInterface;
 import com.ubhave.sensormanager.sensors.SensorUtils;
 import com.ubhave.sensormanager.sensors.pull.PullSensor;
 
-public class PullSensorTask extends AbstractSensorTask
+public class PullSensorTask extends AbstractSensorTask implements SleepWindowListener
 {
 //	private final static String TAG = "PullSensorTask";
 
+	/*
+	 * A sense() that is in progress. Whoever asks for data while it runs, the
+	 * periodic cycle or a one-off caller, waits for it and gets the same
+	 * result instead of failing with SENSOR_ALREADY_SENSING.
+	 */
+	private static class PendingSense
+	{
+		final CountDownLatch complete = new CountDownLatch(1);
+		// set if the periodic cycle publishes this result
+		boolean isPublished;
+		SensorData sensorData;
+		ESException error;
+	}
+
+	private final Runnable senseCycle;
+	private Timeout nextSenseCycle;
+	private boolean isCycleActive;
+	// on the elapsed realtime clock, like the scheduler
+	private long lastSenseEndTime;
+
+	private final CircuitBreaker circuitBreaker;
+	private volatile CircuitBreakerListener circuitBreakerListener;
+
+	private final Object senseLock = new Object();
+	private PendingSense pendingSense;
+
 	public PullSensorTask(SensorInterface sensor)
 	{
 		super(sensor);
+		senseCycle = new Runnable()
+		{
+			public void run()
+			{
+				senseAndReschedule();
+			}
+		};
+
+		// failures of an earlier run do not count against the next one
+		circuitBreaker = new CircuitBreaker();
+		addTaskStateListener(new TaskStateListener()
+		{
+			public void onTaskStateChanged(AbstractSensorTask task, int oldState, int newState)
+			{
+				if ((newState == STOPPED) && circuitBreaker.reset())
+				{
+					notifyCircuitClosed();
+				}
+			}
+		});
+	}
+
+	public void setCircuitBreakerListener(CircuitBreakerListener listener)
+	{
+		circuitBreakerListener = listener;
+	}
+
+	public SenseFailureStatistics getSenseFailureStatistics()
+	{
+		return circuitBreaker.getStatistics();
+	}
+
+	/*
+	 * Something the sensor depends on has changed (e.g. connectivity): if the
+	 * circuit breaker is open, try the sensor now instead of at the end of
+	 * the open period.
+	 */
+	public void onSensingConditionsChanged()
+	{
+		if (circuitBreaker.halfOpen())
+		{
+			synchronized (syncObject)
+			{
+				if ((state.get() == RUNNING) && (nextSenseCycle != null) && nextSenseCycle.cancel())
+				{
+					scheduleSenseCycle(0);
+				}
+			}
+		}
+	}
+
+	/*
+	 * One sense loop serves every subscription: it sleeps for the shortest
+	 * interval any of them asked for (subscriptions without one take the
+	 * sensor's configured sleep length) and senses for the longest window any
+	 * of them asked for. DecimatingListener thins the samples out again for
+	 * the slower subscriptions.
+	 */
+	private long getRequiredSleepLength() throws ESException
+	{
+		long configuredSleep = sensor.getSensorConfig(SensorConfig.POST_SENSE_SLEEP_LENGTH_MILLIS_KEY);
+		long sleepLength = Long.MAX_VALUE;
+		for (SensorDataListener target : listenerRegistry.getListeners())
+		{
+			SensorDataListener listener = getSubscriptionTarget(target);
+			long interval = 0;
+			if (listener instanceof DecimatingListener)
+			{
+				interval = ((DecimatingListener) listener).getSamplingIntervalMillis();
+			}
+			sleepLength = Math.min(sleepLength, (interval > 0) ? interval : configuredSleep);
+		}
+		return (sleepLength == Long.MAX_VALUE) ? configuredSleep : sleepLength;
+	}
+
+	private long getRequiredSenseWindow()
+	{
+		long senseWindow = 0;
+		for (SensorDataListener target : listenerRegistry.getListeners())
+		{
+			SensorDataListener listener = getSubscriptionTarget(target);
+			if (listener instanceof DecimatingListener)
+			{
+				senseWindow = Math.max(senseWindow, ((DecimatingListener) listener).getSenseWindowMillis());
+			}
+		}
+		return senseWindow;
+	}
+
+	// a subscription registered with a replay is delivered to through a gate
+	private static SensorDataListener getSubscriptionTarget(SensorDataListener target)
+	{
+		if (target instanceof ReplayGate)
+		{
+			return ((ReplayGate) target).getTarget();
+		}
+		return target;
+	}
+
+	private void notifyCircuitOpened()
+	{
+		Log.d(getLogTag(), "circuit breaker opened");
+		CircuitBreakerListener listener = circuitBreakerListener;
+		if (listener != null)
+		{
+			listener.onCircuitOpened(this);
+		}
+	}
+
+	private void notifyCircuitClosed()
+	{
+		Log.d(getLogTag(), "circuit breaker closed");
+		CircuitBreakerListener listener = circuitBreakerListener;
+		if (listener != null)
+		{
+			listener.onCircuitClosed(this);
+		}
 	}
 
 	public SensorData getCurrentSensorData(boolean oneOffSensing) throws ESException
 	{
-		SensorData sensorData = ((PullSensor) sensor).sense();
+		PendingSense pending = senseShared(!oneOffSensing);
+		SensorData sensorData = pending.sensorData;
 		// since this is a one-off query for sensor data, sleep interval
 		// is not relevant in this case
 		if (sensorData != null)
 		{
-			// remove sleep length value for the case of one-off sensing
-			if (oneOffSensing)
+			// remove sleep length value for the case of one-off sensing,
+			// unless the same data object also goes to the subscribers
+			if (oneOffSensing && !pending.isPublished)
 			{
-				SensorConfig sensorConfig = sensorData.getSensorConfig();
+				// the sample is cached and in the sensor's history, and its
+				// config is a shared snapshot, so strip copies of both
+				SensorConfig sensorConfig = sensorData.getSensorConfig().clone();
 				sensorConfig.removeParameter(SensorConfig.POST_SENSE_SLEEP_LENGTH_MILLIS);
+				sensorData = sensorData.copy();
+				sensorData.setSensorConfig(sensorConfig.getSnapshot());
 			}
 		}
 		return sensorData;
 	}
 
-	public void run()
+	/*
+	 * Returns the latest sample if it was sensed no more than maxAgeMillis
+	 * ago, without touching the sensor; otherwise senses (or joins the
+	 * sense in progress) like getCurrentSensorData(true).
+	 */
+	public SensorData getSensorData(long maxAgeMillis) throws ESException
+	{
+		SensorData sensorData = getCachedData(maxAgeMillis);
+		if (sensorData != null)
+		{
+			return sensorData;
+		}
+		return getCurrentSensorData(true);
+	}
+
+	private PendingSense senseShared(boolean isPublished) throws ESException
 	{
+		PendingSense pending;
+		boolean isLeader = false;
+		synchronized (senseLock)
+		{
+			if (pendingSense == null)
+			{
+				pendingSense = new PendingSense();
+				isLeader = true;
+			}
+			pending = pendingSense;
+			pending.isPublished |= isPublished;
+		}
+
+		if (isLeader)
+		{
+			try
+			{
+				pending.sensorData = ((PullSensor) sensor).sense();
+			}
+			catch (ESException exp)
+			{
+				pending.error = exp;
+			}
+			finally
+			{
+				boolean willPublish;
+				synchronized (senseLock)
+				{
+					pendingSense = null;
+					willPublish = pending.isPublished;
+				}
+				// one-off results are cached too; published ones are cached
+				// by publishData(), together with its listener snapshot, so
+				// a new subscriber cannot get them both replayed and live
+				if ((pending.sensorData != null) && !willPublish)
+				{
+					sampleCache.add(pending.sensorData);
+				}
+				pending.complete.countDown();
+			}
+		}
+		else
+		{
+			try
+			{
+				pending.complete.await();
+			}
+			catch (InterruptedException exp)
+			{
+				Thread.currentThread().interrupt();
+				throw new ESException(ESException.INVALID_STATE, "Interrupted while waiting for sensor data.");
+			}
+		}
+
+		if (pending.error != null)
+		{
+			throw pending.error;
+		}
+		return pending;
+	}
+
+	protected void onTaskStarted()
+	{
+		// a cycle that is still sensing will reschedule itself when it
+		// completes, so only start a new one if none is in flight
+		if (!isCycleActive)
+		{
+			scheduleSenseCycle(0);
+		}
+	}
+
+	protected void onTaskStopped()
+	{
+		if ((nextSenseCycle != null) && nextSenseCycle.cancel())
+		{
+			isCycleActive = false;
+		}
+		nextSenseCycle = null;
+	}
+
+	/*
+	 * Adaptive sensing changes the sleep length while the task sleeps; the
+	 * pending sense is moved to its new deadline straight away rather than
+	 * the new length applying only after the current sleep.
+	 */
+	public void onSleepWindowLengthChanged(long sleepWindowLengthMillis)
+	{
+		((SleepWindowListener) sensor).onSleepWindowLengthChanged(sleepWindowLengthMillis);
 		synchronized (syncObject)
 		{
-			while (true)
+			if ((state.get() == RUNNING) && (nextSenseCycle != null) && nextSenseCycle.cancel())
 			{
+				long sleepLength = sleepWindowLengthMillis;
 				try
 				{
-					try
-					{
-
-						if ((state == PAUSED) || (state == STOPPED))
-						{
-							if (state == PAUSED)
-							{
-								syncObject.wait(pauseTime);
-							}
-							else if (state == STOPPED)
-							{
-								syncObject.wait();
-							}
-							state = RUNNING;
-							continue;
-						}
-
-						// SENSE
-						// sense() is a blocking call and returns when
-						// the sensing is complete, the sensorConfig object
-						// will have the sampling window, cycle information
-						Log.d(getLogTag(), "Pulling from: " + SensorUtils.getSensorName(sensor.getSensorType()));
-						SensorData sensorData = getCurrentSensorData(false);
-						// publish sensed data
-						publishData(sensorData);
-
-						// SLEEP
-						long samplingInterval = (Long) sensor.getSensorConfig(SensorConfig.POST_SENSE_SLEEP_LENGTH_MILLIS);
-						syncObject.wait(samplingInterval);
-					}
-					catch (InterruptedException exp)
-					{
-						// ignore
-					}
+					// a subscription may still need a shorter sleep
+					sleepLength = getRequiredSleepLength();
 				}
-				catch (ESException e)
+				catch (ESException exp)
 				{
-					e.printStackTrace();
-					try
-					{
-						Thread.sleep(30000);
-					}
-					catch (Exception exp)
-					{
-						exp.printStackTrace();
-					}
+					exp.printStackTrace();
 				}
+				long sleptMillis = SystemClock.elapsedRealtime() - lastSenseEndTime;
+				scheduleSenseCycle(Math.max(0, sleepLength - sleptMillis));
+			}
+		}
+	}
+
+	private void scheduleSenseCycle(long delayMillis)
+	{
+		isCycleActive = true;
+		GlobalConfig config = GlobalConfig.getGlobalConfig();
+		if ((delayMillis > 0) && Boolean.TRUE.equals(config.getParameter(GlobalConfig.ALIGN_WAKEUPS)))
+		{
+			long toleranceMillis = ((Number) config.getParameter(GlobalConfig.WAKE_ALIGNMENT_TOLERANCE_MILLIS))
+					.longValue();
+			nextSenseCycle = scheduler.scheduleAligned(senseCycle, delayMillis, toleranceMillis);
+		}
+		else
+		{
+			nextSenseCycle = scheduler.schedule(senseCycle, delayMillis);
+		}
+	}
+
+	private void senseAndReschedule()
+	{
+		synchronized (syncObject)
+		{
+			nextSenseCycle = null;
+			if (state.get() != RUNNING)
+			{
+				isCycleActive = false;
+				return;
+			}
+		}
+
+		long samplingInterval = 0;
+		boolean isSensed = false;
+		circuitBreaker.onAttempt();
+		try
+		{
+			// SENSE
+			// sense() is a blocking call and returns when
+			// the sensing is complete, the sensorConfig object
+			// will have the sampling window, cycle information
+			Log.d(getLogTag(), "Pulling from: " + SensorUtils.getSensorName(sensor.getSensorType()));
+			((PullSensor) sensor).setMinimumSenseWindow(getRequiredSenseWindow());
+			SensorData sensorData = getCurrentSensorData(false);
+			// publish sensed data
+			publishData(sensorData);
+
+			// a sensor that could not start sensing returns null
+			if (sensorData != null)
+			{
+				// SLEEP
+				samplingInterval = getRequiredSleepLength();
+				isSensed = true;
+			}
+		}
+		catch (ESException e)
+		{
+			e.printStackTrace();
+		}
+
+		if (isSensed)
+		{
+			if (circuitBreaker.recordSuccess())
+			{
+				notifyCircuitClosed();
+			}
+		}
+		else
+		{
+			boolean wasOpen = circuitBreaker.isOpen();
+			circuitBreaker.recordFailure();
+			if (!wasOpen && circuitBreaker.isOpen())
+			{
+				notifyCircuitOpened();
+			}
+			samplingInterval = circuitBreaker.getRetryDelay();
+		}
+
+		synchronized (syncObject)
+		{
+			lastSenseEndTime = SystemClock.elapsedRealtime();
+			if (state.get() == RUNNING)
+			{
+				scheduleSenseCycle(samplingInterval);
+			}
+			else
+			{
+				isCycleActive = false;
 			}
 		}
 	}
@@ -37,68 +37,52 @@ public class PushSensorTask extends AbstractSensorTask implements SensorDataList
 		super(sensor);
 	}
 
-	public void run()
+	protected void onTaskStarted()
 	{
-		while (true)
+		scheduler.execute(new Runnable()
 		{
-			try
+			public void run()
 			{
-				if (state == RUNNING)
+				synchronized (syncObject)
 				{
-					if (!(((PushSensor) sensor).isSensing()))
+					if ((state.get() == RUNNING) && !(((PushSensor) sensor).isSensing()))
 					{
 						try
 						{
-							((PushSensor) sensor).startSensing(this);
+							((PushSensor) sensor).startSensing(PushSensorTask.this);
 						}
 						catch (ESException exp)
 						{
 							exp.printStackTrace();
 						}
 					}
-					else
-					{
-						synchronized (syncObject)
-						{
-							syncObject.wait();
-						}
-					}
 				}
-				else if ((state == PAUSED) || (state == STOPPED))
+			}
+		});
+	}
+
+	protected void onTaskStopped()
+	{
+		scheduler.execute(new Runnable()
+		{
+			public void run()
+			{
+				synchronized (syncObject)
 				{
-					if (((PushSensor) sensor).isSensing())
+					if ((state.get() != RUNNING) && ((PushSensor) sensor).isSensing())
 					{
 						try
 						{
-							((PushSensor) sensor).stopSensing(this);
+							((PushSensor) sensor).stopSensing(PushSensorTask.this);
 						}
 						catch (ESException e)
 						{
 							e.printStackTrace();
 						}
 					}
-					if (state == PAUSED)
-					{
-						synchronized (syncObject)
-						{
-							syncObject.wait(pauseTime);
-						}
-					}
-					else if (state == STOPPED)
-					{
-						synchronized (syncObject)
-						{
-							syncObject.wait();
-						}
-					}
-					state = RUNNING;
 				}
 			}
-			catch (InterruptedException ie)
-			{
-				// ignore
-			}
-		}
+		});
 	}
 
 	public void onDataSensed(SensorData data)
@@ -0,0 +1,107 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+import java.util.ArrayList;
+
+import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.data.SensorData;
+
+/*
+ * Delivery target of a listener that is registered together with a replay
+ * of cached samples: live samples that arrive while the replay is being
+ * delivered are held back and follow it in order. Once open, samples pass
+ * straight through.
+ */
+
+class ReplayGate implements SensorDataListener
+{
+	private final SensorDataListener target;
+	private final ArrayList<SensorData> pending;
+	private volatile boolean isOpen;
+
+	ReplayGate(SensorDataListener target)
+	{
+		this.target = target;
+		this.pending = new ArrayList<SensorData>();
+	}
+
+	SensorDataListener getTarget()
+	{
+		return target;
+	}
+
+	public void onDataSensed(SensorData data)
+	{
+		if (!isOpen && hold(data))
+		{
+			return;
+		}
+		target.onDataSensed(data);
+	}
+
+	private synchronized boolean hold(SensorData data)
+	{
+		if (isOpen)
+		{
+			return false;
+		}
+		pending.add(data.retain());
+		return true;
+	}
+
+	public void onCrossingLowBatteryThreshold(boolean isBelowThreshold)
+	{
+		target.onCrossingLowBatteryThreshold(isBelowThreshold);
+	}
+
+	// delivers what was held back, outside the lock, then lets samples through
+	void open()
+	{
+		while (true)
+		{
+			ArrayList<SensorData> held;
+			synchronized (this)
+			{
+				if (pending.isEmpty())
+				{
+					isOpen = true;
+					return;
+				}
+				held = new ArrayList<SensorData>(pending);
+				pending.clear();
+			}
+
+			for (SensorData data : held)
+			{
+				try
+				{
+					target.onDataSensed(data);
+				}
+				finally
+				{
+					data.release();
+				}
+			}
+		}
+	}
+}
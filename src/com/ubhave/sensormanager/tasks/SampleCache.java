@@ -0,0 +1,110 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+import com.ubhave.sensormanager.data.SensorData;
+
+/*
+ * The last few samples a sensor task has produced, newest last, with the time
+ * each one was cached. Serves reads that can make do with a recent sample and
+ * the replay of recent samples to new subscribers, without sensing. Pooled
+ * samples are retained while cached and handed out as copies.
+ */
+
+public class SampleCache
+{
+	private final SensorData[] samples;
+	private final long[] cachedAt;
+	private int head;
+	private int count;
+
+	public SampleCache(int capacity)
+	{
+		samples = new SensorData[Math.max(1, capacity)];
+		cachedAt = new long[samples.length];
+	}
+
+	public synchronized void add(SensorData sensorData)
+	{
+		if ((count > 0) && (samples[indexOf(count - 1)] == sensorData))
+		{
+			// already cached, e.g. sensed and then published
+			return;
+		}
+
+		int tail = indexOf(count);
+		if (count == samples.length)
+		{
+			samples[tail].release();
+			head = (head + 1) % samples.length;
+		}
+		else
+		{
+			count++;
+		}
+		samples[tail] = sensorData.retain();
+		cachedAt[tail] = System.currentTimeMillis();
+	}
+
+	// the latest sample, if it was cached no more than maxAgeMillis ago
+	public synchronized SensorData getLatest(long maxAgeMillis)
+	{
+		if (count == 0)
+		{
+			return null;
+		}
+		int latest = indexOf(count - 1);
+		if (System.currentTimeMillis() - cachedAt[latest] > maxAgeMillis)
+		{
+			return null;
+		}
+		return handOut(samples[latest]);
+	}
+
+	// up to maxCount of the latest samples, oldest first
+	public synchronized SensorData[] getRecent(int maxCount)
+	{
+		int n = Math.max(0, Math.min(maxCount, count));
+		SensorData[] recent = new SensorData[n];
+		for (int i = 0; i < n; i++)
+		{
+			recent[i] = handOut(samples[indexOf(count - n + i)]);
+		}
+		return recent;
+	}
+
+	// a pooled sample may be recycled after it leaves the cache
+	private SensorData handOut(SensorData sensorData)
+	{
+		return sensorData.isPooled() ? sensorData.copy() : sensorData;
+	}
+
+	public int getCapacity()
+	{
+		return samples.length;
+	}
+
+	private int indexOf(int position)
+	{
+		return (head + position) % samples.length;
+	}
+}
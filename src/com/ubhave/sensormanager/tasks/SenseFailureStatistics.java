@@ -0,0 +1,79 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.tasks;
+
+/*
+ * Snapshot of a pull sensor's failure counters and circuit breaker state
+ * (CircuitBreaker.CLOSED, OPEN or HALF_OPEN).
+ */
+
+public class SenseFailureStatistics
+{
+	private final int breakerState;
+	private final int consecutiveFailures;
+	private final long failureCount;
+	private final long successCount;
+	private final long openCount;
+	private final long lastFailureTime;
+
+	public SenseFailureStatistics(int breakerState, int consecutiveFailures, long failureCount, long successCount,
+			long openCount, long lastFailureTime)
+	{
+		this.breakerState = breakerState;
+		this.consecutiveFailures = consecutiveFailures;
+		this.failureCount = failureCount;
+		this.successCount = successCount;
+		this.openCount = openCount;
+		this.lastFailureTime = lastFailureTime;
+	}
+
+	public int getBreakerState()
+	{
+		return breakerState;
+	}
+
+	public int getConsecutiveFailures()
+	{
+		return consecutiveFailures;
+	}
+
+	public long getFailureCount()
+	{
+		return failureCount;
+	}
+
+	public long getSuccessCount()
+	{
+		return successCount;
+	}
+
+	// number of times the breaker has opened
+	public long getOpenCount()
+	{
+		return openCount;
+	}
+
+	public long getLastFailureTime()
+	{
+		return lastFailureTime;
+	}
+}
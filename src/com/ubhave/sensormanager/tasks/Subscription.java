@@ -22,19 +22,91 @@ IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
 
 package com.ubhave.sensormanager.tasks;
 
+import com.ubhave.sensormanager.SensorDataBatchListener;
 import com.ubhave.sensormanager.SensorDataListener;
+import com.ubhave.sensormanager.classifier.SensorDataClassifier;
+import com.ubhave.sensormanager.config.SensorManagerConstants;
+import com.ubhave.sensormanager.config.SubscriptionConfig;
+import com.ubhave.sensormanager.scheduler.HashedTimingWheel.Timeout;
+import com.ubhave.sensormanager.scheduler.SensingScheduler;
 
 public class Subscription
 {
+	// how a paused subscription is paused
+	private static final int NOT_PAUSED = 0;
+	// unregistered from the task, which may stop if nobody else needs it
+	private static final int PAUSED_UNREGISTERED = 1;
+	// still registered, samples are buffered until unpause()
+	private static final int PAUSED_BUFFERING = 2;
+	// the whole sensor task is paused (this is its only listener); should
+	// another listener register, this one is unregistered instead
+	private static final int PAUSED_TASK = 3;
+
 	private final AbstractSensorTask task;
 	private final SensorDataListener listener;
-	private boolean isPaused = false;
+	private final AsyncDeliveryQueue deliveryQueue;
+	private final BatchingListener batchingListener;
+	private final PausableListener pausableListener;
+	private final SensorDataListener deliveryTarget;
+	private final SensorDataClassifier filter;
+	private final int replayCount;
+	private int pauseMode;
+	private Timeout pauseExpiry;
 	
 	public Subscription(AbstractSensorTask task, SensorDataListener listener)
+	{
+		this(task, listener, null);
+	}
+
+	public Subscription(AbstractSensorTask task, SensorDataListener listener, SubscriptionConfig config)
 	{
 		this.task = task;
 		this.listener = listener;
-		this.isPaused = false;
+		this.pauseMode = NOT_PAUSED;
+		if ((config != null) && config.isAsynchronousDelivery())
+		{
+			deliveryQueue = new AsyncDeliveryQueue(listener, config.getDeliveryQueueCapacity(),
+					config.getDeliveryOverflowPolicy());
+		}
+		else
+		{
+			deliveryQueue = null;
+		}
+		this.batchingListener = null;
+
+		SensorDataBatchListener batchTarget = null;
+		if (listener instanceof SensorDataBatchListener)
+		{
+			batchTarget = (SensorDataBatchListener) listener;
+		}
+		this.pausableListener = new PausableListener((deliveryQueue != null) ? deliveryQueue : listener,
+				batchTarget, SensorManagerConstants.PAUSE_BUFFER_CAPACITY);
+
+		SensorDataListener target = pausableListener;
+		if ((config != null) && config.hasSamplingRequirements())
+		{
+			// samples are decimated before they are buffered or queued
+			target = new DecimatingListener(target, config.getSamplingIntervalMillis(),
+					config.getSenseWindowLengthMillis());
+		}
+		this.deliveryTarget = target;
+		this.filter = (config != null) ? config.getFilter() : null;
+		this.replayCount = (config != null) ? config.getReplayCount() : 0;
+	}
+
+	public Subscription(AbstractSensorTask task, SensorDataBatchListener listener, int maxBatchSize,
+			long maxLatencyMillis)
+	{
+		this.task = task;
+		this.batchingListener = new BatchingListener(listener, maxBatchSize, maxLatencyMillis);
+		this.listener = batchingListener;
+		this.deliveryQueue = null;
+		this.pausableListener = new PausableListener(batchingListener, null,
+				SensorManagerConstants.PAUSE_BUFFER_CAPACITY);
+		this.deliveryTarget = pausableListener;
+		this.filter = null;
+		this.replayCount = 0;
+		this.pauseMode = NOT_PAUSED;
 	}
 
 	public AbstractSensorTask getTask()
@@ -47,31 +119,166 @@ public class Subscription
 		return listener;
 	}
 
+	// what the application subscribed, the batch listener for batches
+	public Object getSubscriber()
+	{
+		return (batchingListener != null) ? batchingListener.getBatchListener() : listener;
+	}
+
+	public boolean isAsynchronous()
+	{
+		return deliveryQueue != null;
+	}
+
+	public DeliveryStatistics getDeliveryStatistics()
+	{
+		if (deliveryQueue == null)
+		{
+			return null;
+		}
+		return deliveryQueue.getDeliveryStatistics();
+	}
+
+	private SensorDataListener getDeliveryTarget()
+	{
+		return deliveryTarget;
+	}
+
 	public boolean register()
 	{
-		return task.registerSensorDataListener(listener);
+		return task.registerSensorDataListener(listener, getDeliveryTarget(), filter, replayCount);
 	}
 
 	public void unregister()
 	{
-		task.unregisterSensorDataListener(listener);
+		synchronized (this)
+		{
+			cancelPauseExpiry();
+			if (pauseMode == PAUSED_TASK)
+			{
+				task.resumeTask(listener);
+			}
+			pauseMode = NOT_PAUSED;
+			task.unregisterSensorDataListener(listener);
+			// closing first wakes a publisher blocked on a full queue
+			if (deliveryQueue != null)
+			{
+				deliveryQueue.close();
+			}
+			pausableListener.clear();
+		}
+
+		if (batchingListener != null)
+		{
+			// the partly filled batch still goes out, not under the lock
+			batchingListener.flush();
+			batchingListener.close();
+		}
 	}
 	
 	public void pause()
 	{
-		isPaused = true;
-		task.unregisterSensorDataListener(listener);
+		pause(false);
+	}
+
+	/*
+	 * A buffering pause keeps the sensor sensing for this subscription and
+	 * delivers what was sensed meanwhile on unpause(); otherwise the
+	 * subscription leaves the task, which stops if nobody else needs it.
+	 */
+	public synchronized void pause(boolean bufferSamples)
+	{
+		if (pauseMode != NOT_PAUSED)
+		{
+			return;
+		}
+
+		if (bufferSamples)
+		{
+			pauseMode = PAUSED_BUFFERING;
+			pausableListener.pause();
+		}
+		else
+		{
+			pauseMode = PAUSED_UNREGISTERED;
+			task.unregisterSensorDataListener(listener);
+		}
+	}
+
+	/*
+	 * Pauses and unpauses again after pauseLengthMillis. If this is the only
+	 * listener of its task and nothing is to be buffered, the task itself is
+	 * paused for that long, so the sensor sleeps without being stopped and
+	 * restarted.
+	 */
+	public synchronized void pause(long pauseLengthMillis, boolean bufferSamples)
+	{
+		if (pauseMode != NOT_PAUSED)
+		{
+			return;
+		}
+
+		if (!bufferSamples && task.pauseTask(listener, pauseLengthMillis))
+		{
+			pauseMode = PAUSED_TASK;
+		}
+		else
+		{
+			pause(bufferSamples);
+		}
+
+		pauseExpiry = SensingScheduler.getSensingScheduler().schedule(new Runnable()
+		{
+			public void run()
+			{
+				unpause();
+			}
+		}, pauseLengthMillis);
 	}
 	
 	public void unpause()
 	{
-		isPaused = false;
-		task.registerSensorDataListener(listener);
+		int mode;
+		synchronized (this)
+		{
+			cancelPauseExpiry();
+			mode = pauseMode;
+			pauseMode = NOT_PAUSED;
+			if (mode == PAUSED_UNREGISTERED)
+			{
+				task.registerSensorDataListener(listener, getDeliveryTarget(), filter);
+			}
+			else if ((mode == PAUSED_TASK) && !task.resumeTask(listener))
+			{
+				// another listener registered and the task resumed for it
+				task.registerSensorDataListener(listener, getDeliveryTarget(), filter);
+			}
+		}
+
+		if (mode == PAUSED_BUFFERING)
+		{
+			// delivery may block on a full queue, so not under the lock
+			pausableListener.resume();
+		}
+	}
+
+	private void cancelPauseExpiry()
+	{
+		if (pauseExpiry != null)
+		{
+			pauseExpiry.cancel();
+			pauseExpiry = null;
+		}
 	}
 	
-	public boolean isPaused()
+	public synchronized boolean isPaused()
+	{
+		return pauseMode != NOT_PAUSED;
+	}
+
+	public long getPauseBufferDroppedCount()
 	{
-		return isPaused;
+		return pausableListener.getDroppedCount();
 	}
 	
 	public boolean equals(Subscription s)
@@ -19,10 +19,10 @@ WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
 ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
 IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  ************************************************** */
-
 package com.ubhave.sensormanager.tasks;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
 
@@ -31,40 +31,71 @@ import android.util.SparseArray;
 
 import com.ubhave.sensormanager.ESException;
 
+/*
+ * Subscriptions indexed by id and by (sensor type, subscriber), where the
+ * subscriber is the listener the application passed in. Ids are handed
+ * out in sequence; the top bits hold a generation that changes whenever the
+ * sequence wraps (and starts at a random value), so an id kept from an
+ * earlier subscription is unlikely to name a newer one. The subscriptions are
+ * also kept in an array that is replaced on every change, so fan-out can
+ * iterate getSubscriptions() without locking or allocating.
+ */
+
 public class SubscriptionList
 {
 	private static String TAG = "SubscriptionList";
 
+	private static final int SEQUENCE_BITS = 23;
+	private static final int SEQUENCE_MASK = (1 << SEQUENCE_BITS) - 1;
+	private static final int GENERATION_MASK = 0xFF;
+
+	private static final Subscription[] EMPTY = new Subscription[0];
+
 	private final SparseArray<Subscription> subscriptionMap;
-	private final Random keyGenerator;
+	private final SparseArray<IdentityHashMap<Object, Integer>> listenerIndex;
+	private volatile Subscription[] subscriptions;
+
+	private int generation;
+	private int sequence;
 
 	public SubscriptionList()
 	{
 		subscriptionMap = new SparseArray<Subscription>();
-		keyGenerator = new Random();
+		listenerIndex = new SparseArray<IdentityHashMap<Object, Integer>>();
+		subscriptions = EMPTY;
+		generation = new Random().nextInt() & GENERATION_MASK;
+		sequence = 0;
 	}
 
 	public synchronized int registerSubscription(Subscription s) throws ESException
 	{
-		if (!s.register()) // subscription already exists
+		// a batch subscription registers a new wrapper each time, so
+		// duplicates are found by the subscriber rather than by register()
+		IdentityHashMap<Object, Integer> listeners = listenerIndex.get(s.getTask().getSensorType());
+		Integer existingId = (listeners != null) ? listeners.get(s.getSubscriber()) : null;
+		if (existingId != null)
 		{
 			Log.d(TAG, "registerSubscription() subscription already exists for task: " + s.getTask().getSensorType()
-					+ " listener: " + s.getListener());
-			for (int i = 0; i < subscriptionMap.size(); i++)
-			{
-				int subscriptionId = subscriptionMap.keyAt(i);
-				Subscription subscription = subscriptionMap.get(subscriptionId);
-				if (subscription.equals(s))
-				{
-					return subscriptionId;
-				}
-			}
+					+ " listener: " + s.getSubscriber());
+			return existingId;
+		}
+		else if (!s.register())
+		{
 			throw new ESException(ESException.INVALID_STATE, "Registered Subscription not found.");
 		}
 		else
 		{
-			int subscriptionId = randomKey();
-			subscriptionMap.append(subscriptionId, s);
+			int subscriptionId = nextId();
+			subscriptionMap.put(subscriptionId, s);
+
+			if (listeners == null)
+			{
+				listeners = new IdentityHashMap<Object, Integer>();
+				listenerIndex.put(s.getTask().getSensorType(), listeners);
+			}
+			listeners.put(s.getSubscriber(), subscriptionId);
+
+			updateSubscriptions();
 			Log.d(TAG, "registerSubscription() new subscription created for task: " + s.getTask().getSensorType()
 					+ " listener: " + s.getListener());
 			return subscriptionId;
@@ -84,22 +115,40 @@ public class SubscriptionList
 			Log.d(TAG, "removeSubscription() deleting subscription created for task: " + s.getTask().getSensorType()
 					+ " listener: " + s.getListener());
 			subscriptionMap.delete(subscriptionId);
+
+			IdentityHashMap<Object, Integer> listeners = listenerIndex.get(s.getTask().getSensorType());
+			if (listeners != null)
+			{
+				Integer indexedId = listeners.get(s.getSubscriber());
+				if ((indexedId != null) && (indexedId == subscriptionId))
+				{
+					listeners.remove(s.getSubscriber());
+				}
+			}
+			updateSubscriptions();
 		}
 		return s;
 	}
 
-	public synchronized List<Subscription> getAllSubscriptions()
+	// the array must not be modified; it is replaced, not changed, when
+	// subscriptions are added or removed
+	public Subscription[] getSubscriptions()
+	{
+		return subscriptions;
+	}
+
+	public int size()
 	{
-		ArrayList<Subscription> list = new ArrayList<Subscription>();
-		Log.d("LOG", "List size is: " + subscriptionMap.size());
+		return subscriptions.length;
+	}
 
-		for (int i = 0; i < subscriptionMap.size(); i++)
+	public List<Subscription> getAllSubscriptions()
+	{
+		Subscription[] current = subscriptions;
+		ArrayList<Subscription> list = new ArrayList<Subscription>(current.length);
+		for (Subscription sub : current)
 		{
-			Subscription sub = subscriptionMap.valueAt(i);
-			if (sub != null)
-			{
-				list.add(sub);
-			}
+			list.add(sub);
 		}
 		return list;
 	}
@@ -109,17 +158,34 @@ public class SubscriptionList
 		return subscriptionMap.get(subscriptionId);
 	}
 
-	private int randomKey() throws ESException
+	private void updateSubscriptions()
 	{
-		int subscriptionId = keyGenerator.nextInt();
-		int loopCount = 0;
-		while (subscriptionMap.get(subscriptionId) != null)
+		Subscription[] updated = new Subscription[subscriptionMap.size()];
+		for (int i = 0; i < updated.length; i++)
 		{
-			if (loopCount > 1000)
-				throw new ESException(ESException.INVALID_STATE, "Listener map >1000 key conflicts.");
-			subscriptionId = keyGenerator.nextInt();
-			loopCount++;
+			updated[i] = subscriptionMap.valueAt(i);
+		}
+		subscriptions = updated;
+	}
+
+	private int nextId() throws ESException
+	{
+		// at most one full turn of the sequence before giving up
+		for (int attempt = 0; attempt <= SEQUENCE_MASK; attempt++)
+		{
+			sequence++;
+			if (sequence > SEQUENCE_MASK)
+			{
+				sequence = 1;
+				generation = (generation + 1) & GENERATION_MASK;
+			}
+
+			int subscriptionId = (generation << SEQUENCE_BITS) | sequence;
+			if (subscriptionMap.get(subscriptionId) == null)
+			{
+				return subscriptionId;
+			}
 		}
-		return subscriptionId;
+		throw new ESException(ESException.INVALID_STATE, "No free subscription id.");
 	}
 }
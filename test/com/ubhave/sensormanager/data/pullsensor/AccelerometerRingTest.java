@@ -0,0 +1,118 @@
+/* **************************************************
+ Copyright (c) 2012, University of Cambridge
+ Neal Lathia, neal.lathia@cl.cam.ac.uk
+ Kiran Rachuri, kiran.rachuri@cl.cam.ac.uk
+
+This library was developed as part of the EPSRC Ubhave (Ubiquitous and
+Social Computing for Positive Behaviour Change) Project. For more
+information, please visit http://www.emotionsense.org
+
+Permission to use, copy, modify, and/or distribute this software for any
+purpose with or without fee is hereby granted, provided that the above
+copyright notice and this permission notice appear in all copies.
+
+THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ ************************************************** */
+package com.ubhave.sensormanager.data.pullsensor;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.TestCase;
+
+public class AccelerometerRingTest extends TestCase
+{
+	public void testDrainsInWriteOrder()
+	{
+		AccelerometerRing ring = new AccelerometerRing(8);
+		for (int i = 0; i < 5; i++)
+		{
+			ring.write(i, 10 + i, 20 + i, 100 + i);
+		}
+
+		assertEquals(5, ring.size());
+		assertDrained(ring, 0, 5);
+	}
+
+	public void testWrapKeepsLatestReadings()
+	{
+		AccelerometerRing ring = new AccelerometerRing(8);
+		for (int i = 0; i < 21; i++)
+		{
+			ring.write(i, 10 + i, 20 + i, 100 + i);
+		}
+
+		// 21 writes into 8 slots: readings 13 to 20 remain, oldest first
+		assertEquals(8, ring.size());
+		assertDrained(ring, 13, 8);
+	}
+
+	public void testResetEmptiesAndOnlyGrows()
+	{
+		AccelerometerRing ring = new AccelerometerRing(8);
+		for (int i = 0; i < 12; i++)
+		{
+			ring.write(i, i, i, i);
+		}
+
+		ring.reset(4);
+		assertEquals(0, ring.size());
+		assertEquals(8, ring.getCapacity());
+
+		ring.reset(16);
+		assertEquals(16, ring.getCapacity());
+		ring.write(1, 11, 21, 101);
+		assertDrained(ring, 1, 1);
+	}
+
+	public void testWriteDoesNotAllocate()
+	{
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported())
+		{
+			return;
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+
+		AccelerometerRing ring = new AccelerometerRing(64);
+		// warm up so the loop below runs compiled and wraps many times
+		for (int i = 0; i < 100000; i++)
+		{
+			ring.write(i, i, i, i);
+		}
+
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 100000; i++)
+		{
+			ring.write(i, i, i, i);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		assertEquals(0, allocated);
+	}
+
+	private static void assertDrained(AccelerometerRing ring, int firstReading, int length)
+	{
+		float[] x = new float[ring.size()];
+		float[] y = new float[ring.size()];
+		float[] z = new float[ring.size()];
+		long[] t = new long[ring.size()];
+
+		assertEquals(length, ring.drain(x, y, z, t));
+		for (int i = 0; i < length; i++)
+		{
+			int reading = firstReading + i;
+			assertEquals((float) reading, x[i]);
+			assertEquals((float) (10 + reading), y[i]);
+			assertEquals((float) (20 + reading), z[i]);
+			assertEquals((long) (100 + reading), t[i]);
+		}
+	}
+}